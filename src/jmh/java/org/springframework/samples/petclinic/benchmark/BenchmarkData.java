@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds the database of a benchmark run with a deterministic, configurable number of
+ * owners, pets and visits on top of the sample data.
+ */
+final class BenchmarkData {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String[] PREFIXES = { "Ander", "Bald", "Carl", "Dal", "Eck", "Fair", "Gold", "Hart", "Ing",
+			"Jas", "Kirk", "Lind", "Mor", "Nor", "Os", "Pem", "Quin", "Ros", "Stan", "Thorn" };
+
+	private static final String[] SUFFIXES = { "son", "ley", "ton", "wood", "field", "berg", "man", "well", "ford",
+			"by", "ham", "stead", "worth", "gate", "more", "dale", "mont", "ridge", "win", "cote" };
+
+	private static final String[] FIRST_NAMES = { "George", "Betty", "Eduardo", "Harold", "Peter", "Jean", "Jeff",
+			"Maria", "David", "Carlos" };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee" };
+
+	private static final int PET_TYPES = 6;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Last names used for the seeded owners; a benchmark picks search prefixes from this
+	 * pool so that every search hits a predictable number of rows.
+	 */
+	static String lastName(int index) {
+		return PREFIXES[index % PREFIXES.length] + SUFFIXES[(index / PREFIXES.length) % SUFFIXES.length];
+	}
+
+	static int lastNameCount() {
+		return PREFIXES.length * SUFFIXES.length;
+	}
+
+	/**
+	 * Insert the given number of owners, each with one or two pets that have between zero
+	 * and three visits.
+	 * @return the id of the first seeded owner; ids are contiguous from there
+	 */
+	static int seed(JdbcTemplate jdbc, int owners) {
+		int firstOwnerId = nextId(jdbc, "owners");
+		int firstPetId = nextId(jdbc, "pets");
+		List<Object[]> ownerRows = new ArrayList<>(BATCH_SIZE);
+		List<Object[]> petRows = new ArrayList<>(BATCH_SIZE);
+		List<Object[]> visitRows = new ArrayList<>(BATCH_SIZE);
+		int petId = firstPetId;
+		LocalDate today = LocalDate.of(2023, 1, 1);
+		for (int i = 0; i < owners; i++) {
+			int ownerId = firstOwnerId + i;
+			ownerRows.add(new Object[] { FIRST_NAMES[i % FIRST_NAMES.length], lastName(i),
+					(100 + i % 900) + " Main St.", CITIES[i % CITIES.length], String.format("608%07d", i) });
+			for (int p = 0; p <= i % 2; p++) {
+				petRows.add(new Object[] { "Pet" + i + "-" + p, Date.valueOf(today.minusDays(i % 3650)),
+						1 + (i + p) % PET_TYPES, ownerId });
+				for (int v = 0; v < (i + p) % 4; v++) {
+					visitRows.add(new Object[] { petId, Date.valueOf(today.minusDays(v * 30L)), "checkup " + v });
+				}
+				petId++;
+			}
+			if (ownerRows.size() == BATCH_SIZE) {
+				flush(jdbc, ownerRows, petRows, visitRows);
+			}
+		}
+		flush(jdbc, ownerRows, petRows, visitRows);
+		return firstOwnerId;
+	}
+
+	private static void flush(JdbcTemplate jdbc, List<Object[]> ownerRows, List<Object[]> petRows,
+			List<Object[]> visitRows) {
+		jdbc.batchUpdate("INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?)",
+				ownerRows);
+		jdbc.batchUpdate("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?)", petRows);
+		jdbc.batchUpdate("INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)", visitRows);
+		ownerRows.clear();
+		petRows.clear();
+		visitRows.clear();
+	}
+
+	private static int nextId(JdbcTemplate jdbc, String table) {
+		Integer max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+		return max == null ? 1 : max + 1;
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the insert throughput in owners per second, each saved with
+ * {@link #PETS} pets of {@link #VISITS} visits, with ids generated by identity columns and
+ * with the {@code pooled-ids} profile, where Hibernate batches the inserts. The
+ * application runs against a private in-memory H2 database, so the gain from fewer round
+ * trips to a remote database is larger than measured here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+	private static final int PETS = 3;
+
+	private static final int VISITS = 2;
+
+	private static final int BULK = 100;
+
+	/**
+	 * One owner per transaction, as the owner and pet forms save them.
+	 */
+	@Benchmark
+	public Owner saveOwner(Application application) {
+		Owner owner = application.newOwner();
+		application.owners.save(owner);
+		return owner;
+	}
+
+	/**
+	 * {@link #BULK} owners per transaction, as a bulk workload saves them.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BULK)
+	public void saveOwners(Application application) {
+		application.transactions.executeWithoutResult((status) -> {
+			for (int i = 0; i < BULK; i++) {
+				application.owners.save(application.newOwner());
+			}
+		});
+	}
+
+	@State(Scope.Benchmark)
+	public static class Application {
+
+		@Param({ "identity", "pooled-ids" })
+		public String ids;
+
+		ConfigurableApplicationContext context;
+
+		OwnerRepository owners;
+
+		TransactionTemplate transactions;
+
+		PetType type;
+
+		@Setup(Level.Trial)
+		public void start() {
+			SpringApplicationBuilder builder = new SpringApplicationBuilder(PetClinicApplication.class).properties(
+					"server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN",
+					"spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID());
+			if (!this.ids.equals("identity")) {
+				builder.profiles(this.ids);
+			}
+			this.context = builder.run();
+			this.owners = this.context.getBean(OwnerRepository.class);
+			this.transactions = this.context.getBean(TransactionTemplate.class);
+			List<PetType> types = this.owners.findPetTypes();
+			this.type = types.get(0);
+		}
+
+		@TearDown(Level.Trial)
+		public void stop() {
+			this.context.close();
+		}
+
+		Owner newOwner() {
+			Owner owner = new Owner();
+			owner.setFirstName("Benchmark");
+			owner.setLastName("Owner");
+			owner.setAddress("1 Main St.");
+			owner.setCity("Madison");
+			owner.setTelephone("6085550000");
+			for (int i = 0; i < PETS; i++) {
+				Pet pet = new Pet();
+				pet.setName("Pet " + i);
+				pet.setBirthDate(LocalDate.of(2020, 1, 1));
+				pet.setType(this.type);
+				for (int j = 0; j < VISITS; j++) {
+					Visit visit = new Visit();
+					visit.setDescription("check-up");
+					pet.addVisit(visit);
+				}
+				owner.addPet(pet);
+			}
+			return owner;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load driver for comparing the application with platform and with
+ * virtual request threads. Each simulated user sends its next request as soon as the
+ * previous one completes, so the number of users is the number of requests in flight.
+ * Start the application with and without {@code --petclinic.threads.virtual.enabled=true}
+ * (on Java 21) and run, for example:
+ *
+ * <pre class="code">
+ * ./mvnw -P benchmark package exec:exec -Dbenchmark.main=org.springframework.samples.petclinic.benchmark.LoadDriver \
+ *     -Djmh.args="http://localhost:8080/owners/1 30 1000 5000 10000"
+ * </pre>
+ *
+ * The arguments are the URL, the seconds to run each step for, and the user counts.
+ * Large user counts may need a higher {@code ulimit -n} and
+ * {@code server.tomcat.max-connections} than the defaults.
+ */
+public final class LoadDriver {
+
+	private LoadDriver() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: LoadDriver <url> <seconds> <users>...");
+			System.exit(2);
+		}
+		URI uri = URI.create(args[0]);
+		Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		System.out.printf("%8s %12s %10s %10s %10s %8s%n", "users", "requests/s", "p50 ms", "p99 ms", "max ms",
+				"errors");
+		for (String users : Arrays.copyOfRange(args, 2, args.length)) {
+			run(client, uri, Integer.parseInt(users), duration);
+		}
+	}
+
+	private static void run(HttpClient client, URI uri, int users, Duration duration) throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).build();
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicLong errors = new AtomicLong();
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		CompletableFuture<?>[] loops = new CompletableFuture<?>[users];
+		for (int i = 0; i < users; i++) {
+			loops[i] = loop(client, request, running, latencies, errors);
+		}
+		Thread.sleep(duration.toMillis());
+		running.set(false);
+		CompletableFuture.allOf(loops).exceptionally((ex) -> null).join();
+		long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		System.out.printf("%8d %12.0f %10.1f %10.1f %10.1f %8d%n", users, sorted.length / (double) duration.toSeconds(),
+				percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1.0), errors.get());
+	}
+
+	private static CompletableFuture<Void> loop(HttpClient client, HttpRequest request, AtomicBoolean running,
+			ConcurrentLinkedQueue<Long> latencies, AtomicLong errors) {
+		if (!running.get()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		long start = System.nanoTime();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, ex) -> {
+			if (ex != null || response.statusCode() >= 400) {
+				errors.incrementAndGet();
+			}
+			else {
+				latencies.add(System.nanoTime() - start);
+			}
+			return null;
+		}).thenCompose((ignored) -> loop(client, request, running, latencies, errors));
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1_000_000.0;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.owner.OwnerNameIndex;
+
+/**
+ * Measures the in-memory {@link OwnerNameIndex} behind the owner autocomplete, for
+ * comparison with the {@code findByLastName} queries of
+ * {@link OwnerRepositoryBenchmark}. Run with {@code -p owners=1000000} for the size it is
+ * meant for.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerNameIndexBenchmark {
+
+	/**
+	 * The first ten owners whose last name starts with the first three letters of a
+	 * random one, as typed into the search form.
+	 */
+	@Benchmark
+	public List<OwnerNameIndex.Match> findByPrefix(Index index, RandomKeys keys) {
+		return index.names.find(keys.lastName().substring(0, 3), 10);
+	}
+
+	@Benchmark
+	public List<OwnerNameIndex.Match> findByLastName(Index index, RandomKeys keys) {
+		return index.names.find(keys.lastName(), 10);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Index {
+
+		OwnerNameIndex names;
+
+		/**
+		 * Index the owners seeded after the application started.
+		 */
+		@Setup(Level.Trial)
+		public void load(PetClinicState state) {
+			this.names = state.getBean(OwnerNameIndex.class);
+			this.names.reload();
+		}
+
+	}
+
+}
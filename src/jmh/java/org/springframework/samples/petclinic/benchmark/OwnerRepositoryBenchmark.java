@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerFuzzySearch;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+
+/**
+ * Measures the {@link OwnerRepository} queries behind the owner search and the owner
+ * details page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerRepositoryBenchmark {
+
+	private static final int BATCH = 500;
+
+	@Benchmark
+	public Page<Owner> findByLastName(PetClinicState state, RandomKeys keys) {
+		return state.getBean(OwnerRepository.class).findByLastName(keys.lastName(), PageRequest.of(0, 5));
+	}
+
+	/**
+	 * Offset paging over the broadest search, half way through the table.
+	 */
+	@Benchmark
+	public Page<Owner> findByLastNameDeepPage(PetClinicState state) {
+		return state.getBean(OwnerRepository.class).findByLastName("", PageRequest.of(state.owners / 10, 5));
+	}
+
+	/**
+	 * Keyset paging to the same position as {@link #findByLastNameDeepPage}.
+	 */
+	@Benchmark
+	public Slice<Owner> findByLastNameAfterDeepCursor(PetClinicState state, DeepCursor cursor) {
+		return state.getBean(OwnerRepository.class)
+			.findByLastNameAfter("", cursor.lastName, cursor.id, PageRequest.ofSize(5));
+	}
+
+	/**
+	 * The projection the owner search list is rendered from, for comparison with
+	 * {@link #findByLastName}.
+	 */
+	@Benchmark
+	public Page<OwnerSummary> findSummariesByLastName(PetClinicState state, RandomKeys keys) {
+		return state.getBean(OwnerRepository.class).findSummariesByLastName(keys.lastName(), PageRequest.of(0, 5));
+	}
+
+	@Benchmark
+	public Slice<OwnerSummary> findSummariesByLastNameAfterDeepCursor(PetClinicState state, DeepCursor cursor) {
+		return state.getBean(OwnerRepository.class)
+			.findSummariesByLastNameAfter("", cursor.lastName, cursor.id, PageRequest.ofSize(5));
+	}
+
+	/**
+	 * The fuzzy search for a misspelled last name, for comparison with
+	 * {@link #findSummariesByLastName}.
+	 */
+	@Benchmark
+	public List<OwnerSummary> fuzzySearch(PhoneticKeys phoneticKeys, RandomKeys keys) {
+		return phoneticKeys.search.find(keys.misspelledLastName(), 20);
+	}
+
+	@Benchmark
+	public Owner findById(PetClinicState state, RandomKeys keys) {
+		return state.getBean(OwnerRepository.class).findById(keys.ownerId(state));
+	}
+
+	/**
+	 * The owners behind {@link #BATCH} random ids, in one query per
+	 * {@link OwnerRepository#ID_CHUNK_SIZE} ids.
+	 */
+	@Benchmark
+	public List<Owner> findAllById(PetClinicState state, RandomKeys keys) {
+		return state.getBean(OwnerRepository.class).findAllById(ownerIds(state, keys));
+	}
+
+	/**
+	 * The same lookup one id at a time, as a client of the owner page would make it, for
+	 * comparison with {@link #findAllById}.
+	 */
+	@Benchmark
+	public List<Owner> findByIdEach(PetClinicState state, RandomKeys keys) {
+		OwnerRepository owners = state.getBean(OwnerRepository.class);
+		List<Owner> found = new ArrayList<>(BATCH);
+		for (int id : ownerIds(state, keys)) {
+			found.add(owners.findById(id));
+		}
+		return found;
+	}
+
+	private static List<Integer> ownerIds(PetClinicState state, RandomKeys keys) {
+		List<Integer> ids = new ArrayList<>(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			ids.add(keys.ownerId(state));
+		}
+		return ids;
+	}
+
+	@State(Scope.Benchmark)
+	public static class DeepCursor {
+
+		String lastName;
+
+		int id;
+
+		@Setup(Level.Trial)
+		public void locate(PetClinicState state) {
+			state.getBean(JdbcTemplate.class)
+				.query("SELECT last_name, id FROM owners ORDER BY last_name, id OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY",
+						(rs) -> {
+							this.lastName = rs.getString(1);
+							this.id = rs.getInt(2);
+						}, state.owners / 10 * 5 - 1);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class PhoneticKeys {
+
+		OwnerFuzzySearch search;
+
+		/**
+		 * Compute the keys of the owners seeded after the application started.
+		 */
+		@Setup(Level.Trial)
+		public void backfill(PetClinicState state) {
+			this.search = state.getBean(OwnerFuzzySearch.class);
+			this.search.backfill();
+		}
+
+	}
+
+}
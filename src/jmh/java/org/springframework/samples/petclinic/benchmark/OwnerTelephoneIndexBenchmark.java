@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.samples.petclinic.owner.OwnerTelephoneIndex;
+
+/**
+ * Measures the reverse telephone lookup: the in-memory {@link OwnerTelephoneIndex} alone,
+ * and together with loading the summaries of the owners found, as the lookup endpoint
+ * does. Run with {@code -p owners=1000000} to check that the time does not grow with the
+ * number of owners.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerTelephoneIndexBenchmark {
+
+	@Benchmark
+	public int[] findOwnerIds(Index index, PetClinicState state, RandomKeys keys) {
+		return index.telephones.findOwnerIds(keys.telephone(state));
+	}
+
+	@Benchmark
+	public List<OwnerSummary> findSummaries(Index index, PetClinicState state, RandomKeys keys) {
+		int[] ids = index.telephones.findOwnerIds(keys.telephone(state));
+		return index.owners.findSummariesByIdIn(Arrays.stream(ids).boxed().toList());
+	}
+
+	@State(Scope.Benchmark)
+	public static class Index {
+
+		OwnerTelephoneIndex telephones;
+
+		OwnerRepository owners;
+
+		/**
+		 * Index the owners seeded after the application started.
+		 */
+		@Setup(Level.Trial)
+		public void load(PetClinicState state) {
+			this.telephones = state.getBean(OwnerTelephoneIndex.class);
+			this.telephones.reload();
+			this.owners = state.getBean(OwnerRepository.class);
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.UUID;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Starts the application once per trial against a private in-memory H2 database seeded
+ * with {@link #owners} owners. Pass {@code -p owners=10000,100000,1000000} to JMH to
+ * compare table sizes.
+ */
+@State(Scope.Benchmark)
+public class PetClinicState {
+
+	@Param({ "10000" })
+	public int owners;
+
+	ConfigurableApplicationContext context;
+
+	MockMvc mockMvc;
+
+	int firstOwnerId;
+
+	@Setup(Level.Trial)
+	public void start() {
+		this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN",
+					"spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID())
+			.run();
+		this.firstOwnerId = BenchmarkData.seed(this.context.getBean(JdbcTemplate.class), this.owners);
+		this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) this.context).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		this.context.close();
+	}
+
+	<T> T getBean(Class<T> type) {
+		return this.context.getBean(type);
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-thread source of lookup keys, so that repeated invocations do not keep hitting the
+ * same row.
+ */
+@State(Scope.Thread)
+public class RandomKeys {
+
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	int ownerId(PetClinicState state) {
+		return state.firstOwnerId + this.random.nextInt(state.owners);
+	}
+
+	/**
+	 * The telephone number of a random seeded owner, formatted as a caller would give it.
+	 */
+	String telephone(PetClinicState state) {
+		int i = this.random.nextInt(state.owners);
+		return String.format("(608) %03d-%04d", i / 10000, i % 10000);
+	}
+
+	String lastName() {
+		return BenchmarkData.lastName(this.random.nextInt(BenchmarkData.lastNameCount()));
+	}
+
+	/**
+	 * A last name with its first vowel after the initial swapped for another, as a
+	 * misspelling that sounds the same.
+	 */
+	String misspelledLastName() {
+		char[] name = lastName().toCharArray();
+		for (int i = 1; i < name.length; i++) {
+			int vowel = "aeiou".indexOf(name[i]);
+			if (vowel >= 0) {
+				name[i] = "aeiou".charAt((vowel + 1 + this.random.nextInt(4)) % 5);
+				break;
+			}
+		}
+		return new String(name);
+	}
+
+}
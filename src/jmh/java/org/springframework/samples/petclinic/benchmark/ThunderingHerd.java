@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jakarta.servlet.Filter;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stress test of request coalescing under a thundering herd: in each round, every client
+ * requests the same owner search and the same owner page at the same instant. It runs
+ * the application with and without {@code petclinic.singleflight.enabled} and prints the
+ * SQL statements executed and the calls coalesced, for example with:
+ *
+ * <pre class="code">
+ * ./mvnw -P benchmark package exec:exec -Dbenchmark.main=org.springframework.samples.petclinic.benchmark.ThunderingHerd \
+ *     -Djmh.args="100000 64 20"
+ * </pre>
+ *
+ * The arguments are the number of owners to seed, of clients and of rounds.
+ */
+public final class ThunderingHerd {
+
+	private ThunderingHerd() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int owners = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+		int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+		int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+		System.out.printf("%-12s %10s %14s %12s %10s%n", "singleflight", "requests", "sql statements", "coalesced",
+				"errors");
+		for (boolean singleFlight : new boolean[] { false, true }) {
+			run(singleFlight, owners, clients, rounds);
+		}
+	}
+
+	private static void run(boolean singleFlight, int owners, int clients, int rounds) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN",
+					"spring.datasource.url=jdbc:h2:mem:herd-" + UUID.randomUUID(),
+					"spring.datasource.hikari.maximum-pool-size=" + clients,
+					"petclinic.singleflight.enabled=" + singleFlight)
+			.run()) {
+			int firstOwnerId = BenchmarkData.seed(context.getBean(JdbcTemplate.class), owners);
+			MockMvc mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+				.addFilters(context.getBeansOfType(Filter.class).values().toArray(new Filter[0]))
+				.build();
+			List<RequestBuilder> requests = List.of(get("/owners").param("lastName", BenchmarkData.lastName(0)),
+					get("/owners/{ownerId}", firstOwnerId));
+			MeterRegistry registry = context.getBean(MeterRegistry.class);
+			double statementsBefore = statements(registry);
+			double coalescedBefore = coalesced(registry);
+			int errors = 0;
+			ExecutorService executor = Executors.newFixedThreadPool(clients);
+			try {
+				for (int round = 0; round < rounds; round++) {
+					RequestBuilder request = requests.get(round % requests.size());
+					CyclicBarrier start = new CyclicBarrier(clients);
+					List<Future<Integer>> statuses = new ArrayList<>();
+					for (int client = 0; client < clients; client++) {
+						statuses.add(executor.submit(() -> {
+							start.await();
+							return mockMvc.perform(request).andReturn().getResponse().getStatus();
+						}));
+					}
+					for (Future<Integer> status : statuses) {
+						if (status.get() >= 400) {
+							errors++;
+						}
+					}
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+			System.out.printf("%-12s %10d %14.0f %12.0f %10d%n", singleFlight, clients * rounds,
+					statements(registry) - statementsBefore, coalesced(registry) - coalescedBefore, errors);
+		}
+	}
+
+	private static double statements(MeterRegistry registry) {
+		return registry.find("petclinic.requests.sql.statements")
+			.summaries()
+			.stream()
+			.mapToDouble(DistributionSummary::totalAmount)
+			.sum();
+	}
+
+	private static double coalesced(MeterRegistry registry) {
+		return registry.find("petclinic.singleflight.calls")
+			.tag("result", "coalesced")
+			.counters()
+			.stream()
+			.mapToDouble(Counter::count)
+			.sum();
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Measures the {@code /vets} resource polled by the mobile app, for comparison with
+ * serving the same bytes as a static file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VetControllerBenchmark {
+
+	@Benchmark
+	public MvcResult json(PetClinicState state) throws Exception {
+		return state.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON)).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult jsonGzip(PetClinicState state) throws Exception {
+		return state.mockMvc
+			.perform(get("/vets").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+			.andReturn();
+	}
+
+	@Benchmark
+	public MvcResult xml(PetClinicState state) throws Exception {
+		return state.mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML)).andReturn();
+	}
+
+	@Benchmark
+	public MvcResult staticFile(PetClinicState state) throws Exception {
+		return state.mockMvc.perform(get("/resources/images/favicon.png")).andReturn();
+	}
+
+}
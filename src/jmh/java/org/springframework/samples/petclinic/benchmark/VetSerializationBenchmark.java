@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.Vets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlTransient;
+
+/**
+ * Measures serializing the vet list to JSON and XML, as {@code /vets} does, with the
+ * specialties sorted once per vet ({@code presorted}) or sorted by reflection on every
+ * call as they used to be ({@code reflection}). The vets are built in memory, so only
+ * the serialization is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VetSerializationBenchmark {
+
+	private static final String[] SPECIALTIES = { "radiology", "surgery", "dentistry", "cardiology", "dermatology",
+			"oncology", "neurology", "ophthalmology" };
+
+	@Param({ "presorted", "reflection" })
+	public String sorting;
+
+	@Param({ "6", "100" })
+	public int vets;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private JAXBContext jaxbContext;
+
+	private Vets vetList;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.jaxbContext = JAXBContext.newInstance(Vets.class, ReflectionSortedVet.class);
+		List<Specialty> specialties = new ArrayList<>();
+		for (int i = 0; i < SPECIALTIES.length; i++) {
+			Specialty specialty = new Specialty();
+			specialty.setId(i + 1);
+			specialty.setName(SPECIALTIES[i]);
+			specialties.add(specialty);
+		}
+		this.vetList = new Vets();
+		for (int i = 0; i < this.vets; i++) {
+			Vet vet = "reflection".equals(this.sorting) ? new ReflectionSortedVet() : new Vet();
+			vet.setId(i + 1);
+			vet.setFirstName(BenchmarkData.lastName(i * 7));
+			vet.setLastName(BenchmarkData.lastName(i));
+			for (int s = 0; s < i % 4; s++) {
+				vet.addSpecialty(specialties.get((i + s * 3) % specialties.size()));
+			}
+			this.vetList.getVetList().add(vet);
+		}
+	}
+
+	@Benchmark
+	public byte[] json() throws Exception {
+		return this.objectMapper.writeValueAsBytes(this.vetList);
+	}
+
+	@Benchmark
+	public byte[] xml() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		Marshaller marshaller = this.jaxbContext.createMarshaller();
+		marshaller.marshal(this.vetList, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * A vet whose specialties are sorted with a {@link PropertyComparator} on every call,
+	 * as {@link Vet#getSpecialties()} used to do.
+	 */
+	@XmlTransient
+	static class ReflectionSortedVet extends Vet {
+
+		@Override
+		public List<Specialty> getSpecialties() {
+			List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
+			PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
+			return sortedSpecs;
+		}
+
+	}
+
+}
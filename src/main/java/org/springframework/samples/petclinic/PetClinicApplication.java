@@ -18,6 +18,7 @@ package org.springframework.samples.petclinic;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
@@ -31,7 +32,11 @@ import org.springframework.context.annotation.ImportRuntimeHints;
 public class PetClinicApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(PetClinicApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(PetClinicApplication.class, args);
+		if (context.getEnvironment().containsProperty("petclinic.import.file")) {
+			// a one-off import: exit with the code of the import runner
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Full exports of the owners, pets and visits tables for offline analysis, e.g.
+ * {@code /export/visits?format=csv&gzip=true}.
+ */
+@Controller
+class ExportController {
+
+	private final TableExporter exporter;
+
+	public ExportController(TableExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@GetMapping("/export/{table}")
+	public ResponseEntity<StreamingResponseBody> export(@PathVariable("table") String table,
+			@RequestParam(defaultValue = "ndjson") String format, @RequestParam(defaultValue = "false") boolean gzip) {
+		ExportTable exportTable = valueOf(ExportTable.class, "table", table);
+		ExportFormat exportFormat = valueOf(ExportFormat.class, "format", format);
+		String fileName = exportTable.getFileName() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+		StreamingResponseBody body = (out) -> {
+			OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+			this.exporter.export(exportTable, exportFormat, target);
+			if (target instanceof GZIPOutputStream gzipped) {
+				gzipped.finish();
+			}
+		};
+		return ResponseEntity.ok()
+			.contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+			.header(HttpHeaders.CONTENT_DISPOSITION,
+					ContentDisposition.attachment().filename(fileName).build().toString())
+			.body(body);
+	}
+
+	private static <E extends Enum<E>> E valueOf(Class<E> type, String name, String value) {
+		try {
+			return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export " + name + ": " + value, ex);
+		}
+	}
+
+}
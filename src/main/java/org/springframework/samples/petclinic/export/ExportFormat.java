@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * The formats rows can be exported in. Each format writes one row at a time straight to
+ * the output stream, so nothing but the current row is held in memory.
+ */
+public enum ExportFormat {
+
+	/**
+	 * Newline-delimited JSON: one object per row, keyed by column name.
+	 */
+	NDJSON("application/x-ndjson", "ndjson") {
+
+		@Override
+		RowWriter open(OutputStream out, ResultSetMetaData metaData) throws IOException {
+			JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8);
+			json.setRootValueSeparator(null);
+			return new RowWriter() {
+
+				@Override
+				public void write(ResultSet rs) throws SQLException, IOException {
+					json.writeStartObject();
+					for (int i = 1; i <= metaData.getColumnCount(); i++) {
+						json.writeFieldName(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
+						if (isNumeric(metaData.getColumnType(i))) {
+							long value = rs.getLong(i);
+							if (rs.wasNull()) {
+								json.writeNull();
+							}
+							else {
+								json.writeNumber(value);
+							}
+						}
+						else {
+							json.writeString(rs.getString(i));
+						}
+					}
+					json.writeEndObject();
+					json.writeRaw('\n');
+				}
+
+				@Override
+				public void close() throws IOException {
+					json.close();
+				}
+
+			};
+		}
+
+	},
+
+	/**
+	 * Comma-separated values with a header row, quoted as described in RFC 4180.
+	 */
+	CSV("text/csv", "csv") {
+
+		@Override
+		RowWriter open(OutputStream out, ResultSetMetaData metaData) throws IOException, SQLException {
+			Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+			for (int i = 1; i <= metaData.getColumnCount(); i++) {
+				writeCsvValue(csv, i, metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
+			}
+			csv.write("\r\n");
+			return new RowWriter() {
+
+				@Override
+				public void write(ResultSet rs) throws SQLException, IOException {
+					for (int i = 1; i <= metaData.getColumnCount(); i++) {
+						writeCsvValue(csv, i, rs.getString(i));
+					}
+					csv.write("\r\n");
+				}
+
+				@Override
+				public void close() throws IOException {
+					csv.close();
+				}
+
+			};
+		}
+
+	};
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String contentType;
+
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	String getContentType() {
+		return this.contentType;
+	}
+
+	String getExtension() {
+		return this.extension;
+	}
+
+	/**
+	 * Start writing rows with the given columns to the given stream.
+	 */
+	abstract RowWriter open(OutputStream out, ResultSetMetaData metaData) throws IOException, SQLException;
+
+	private static boolean isNumeric(int sqlType) {
+		return sqlType == Types.INTEGER || sqlType == Types.BIGINT || sqlType == Types.SMALLINT
+				|| sqlType == Types.TINYINT;
+	}
+
+	private static void writeCsvValue(Writer csv, int column, String value) throws IOException {
+		if (column > 1) {
+			csv.write(',');
+		}
+		if (value == null) {
+			return;
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			csv.write(value);
+			return;
+		}
+		csv.write('"');
+		csv.write(value.replace("\"", "\"\""));
+		csv.write('"');
+	}
+
+	/**
+	 * Writes the rows of one export.
+	 */
+	interface RowWriter extends AutoCloseable {
+
+		void write(ResultSet rs) throws SQLException, IOException;
+
+		@Override
+		void close() throws IOException;
+
+	}
+
+}
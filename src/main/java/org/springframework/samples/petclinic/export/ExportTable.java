@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.util.Locale;
+
+/**
+ * The tables that can be exported, each with the query that reads it in primary key
+ * order.
+ */
+public enum ExportTable {
+
+	OWNERS("SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY id"),
+
+	PETS("SELECT pets.id, pets.owner_id, pets.name, pets.birth_date, types.name AS pet_type "
+			+ "FROM pets JOIN types ON types.id = pets.type_id ORDER BY pets.id"),
+
+	VISITS("SELECT id, pet_id, visit_date, description FROM visits ORDER BY id");
+
+	private final String query;
+
+	ExportTable(String query) {
+		this.query = query;
+	}
+
+	String getQuery() {
+		return this.query;
+	}
+
+	String getFileName() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Streams a whole table to an output stream through a forward-only cursor. The rows are
+ * fetched {@code petclinic.export.fetch-size} at a time and written as they arrive, so
+ * memory use does not depend on the size of the table.
+ */
+@Component
+public class TableExporter {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	public TableExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.export.fetch-size:1000}") int fetchSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(fetchSize);
+		// cursors need a transaction on some drivers, e.g. PostgreSQL
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Write all rows of the given table to the given stream.
+	 * @param table the table to export
+	 * @param format the format to write the rows in
+	 * @param out the stream to write to, which is not closed
+	 * @return the number of rows written
+	 */
+	public long export(ExportTable table, ExportFormat format, OutputStream out) throws IOException {
+		try {
+			Long rows = this.transactionTemplate
+				.execute((status) -> this.jdbcTemplate.query(table.getQuery(), rowsWrittenTo(format, out)));
+			return (rows != null ? rows : 0);
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private ResultSetExtractor<Long> rowsWrittenTo(ExportFormat format, OutputStream out) {
+		return (rs) -> {
+			long rows = 0;
+			try (ExportFormat.RowWriter writer = format.open(StreamUtils.nonClosing(out), rs.getMetaData())) {
+				while (rs.next()) {
+					writer.write(rs);
+					rows++;
+				}
+			}
+			catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return rows;
+		};
+	}
+
+}
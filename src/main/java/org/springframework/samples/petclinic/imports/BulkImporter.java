@@ -0,0 +1,419 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sql.DataSource;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.imports.ImportFormat.InvalidRecordException;
+import org.springframework.samples.petclinic.imports.ImportFormat.RecordReader;
+import org.springframework.samples.petclinic.imports.OwnerRecord.PetRecord;
+import org.springframework.samples.petclinic.imports.OwnerRecord.VisitRecord;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.model.IdTables;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerSavedEvent;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetTypeRegistry;
+import org.springframework.samples.petclinic.owner.PetValidator;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+/**
+ * Imports owners with their pets and visits in bulk.
+ * <p>
+ * Records are read in chunks of {@code petclinic.import.chunk-size}. Each chunk is
+ * validated in parallel with the same rules as the owner and pet forms while the previous
+ * chunk is written, and is written in its own transaction with JDBC batch inserts. The
+ * ids of the new owners and pets are read back from the batches' generated keys, which
+ * keeps identity columns usable for batching without a round trip per row. Where
+ * {@link IdTables} are in use, the ids of each chunk are reserved from them up front
+ * instead. An invalid record is rejected together with its pets and visits and does not
+ * stop the import.
+ */
+@Component
+public class BulkImporter {
+
+	private static final Log logger = LogFactory.getLog(BulkImporter.class);
+
+	private static final int MAX_ERRORS = 100;
+
+	// the id column is only listed, as the last one, when ids come from IdTables
+	private static final String INSERT_OWNER = "INSERT INTO owners (first_name, last_name, address, city, telephone, last_name_soundex%s) VALUES (?, ?, ?, ?, ?, ?%s)";
+
+	private static final String INSERT_PET = "INSERT INTO pets (name, birth_date, type_id, owner_id%s) VALUES (?, ?, ?, ?%s)";
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (pet_id, visit_date, description%s) VALUES (?, ?, ?%s)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final PetTypeRegistry petTypes;
+
+	private final Validator validator;
+
+	private final PetValidator petValidator = new PetValidator();
+
+	private final CacheManager cacheManager;
+
+	private final ApplicationEventPublisher publisher;
+
+	private final IdTables idTables;
+
+	private final int chunkSize;
+
+	public BulkImporter(DataSource dataSource, PlatformTransactionManager transactionManager, PetTypeRegistry petTypes,
+			Validator validator, CacheManager cacheManager, ApplicationEventPublisher publisher, IdTables idTables,
+			@Value("${petclinic.import.chunk-size:1000}") int chunkSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.petTypes = petTypes;
+		this.validator = validator;
+		this.cacheManager = cacheManager;
+		this.publisher = publisher;
+		this.idTables = idTables;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Import all owners from the given stream.
+	 * @param in the stream to read from, which is not closed
+	 * @param format the format of the stream
+	 * @return the outcome of the import
+	 */
+	public ImportResult importFrom(InputStream in, ImportFormat format) throws IOException {
+		Progress progress = new Progress(System.currentTimeMillis());
+		RecordReader reader = format.open(in);
+		CompletableFuture<Chunk> pending = null;
+		try {
+			List<Line> lines;
+			while (!(lines = read(reader, progress)).isEmpty()) {
+				List<Line> toValidate = lines;
+				CompletableFuture<Chunk> validated = CompletableFuture.supplyAsync(() -> validate(toValidate));
+				if (pending != null) {
+					write(pending.join(), progress);
+				}
+				pending = validated;
+			}
+			if (pending != null) {
+				write(pending.join(), progress);
+			}
+		}
+		finally {
+			Cache counts = this.cacheManager.getCache("ownerCounts");
+			if (counts != null) {
+				counts.clear();
+			}
+		}
+		ImportResult result = progress.toResult();
+		logger.info(String.format("Imported %d owners, %d pets and %d visits in %d ms (%d rows/s), rejected %d",
+				result.owners(), result.pets(), result.visits(), result.millis(), result.getRowsPerSecond(),
+				result.rejected()));
+		return result;
+	}
+
+	private List<Line> read(RecordReader reader, Progress progress) throws IOException {
+		List<Line> lines = new ArrayList<>(this.chunkSize);
+		while (lines.size() < this.chunkSize) {
+			try {
+				OwnerRecord record = reader.next();
+				if (record == null) {
+					break;
+				}
+				lines.add(new Line(reader.line(), record));
+			}
+			catch (InvalidRecordException ex) {
+				progress.reject(reader.line(), ex.getMessage());
+			}
+		}
+		return lines;
+	}
+
+	private Chunk validate(List<Line> lines) {
+		List<Object> results = lines.parallelStream().map(this::toOwner).toList();
+		Chunk chunk = new Chunk(new ArrayList<>(), new ArrayList<>());
+		for (Object result : results) {
+			if (result instanceof Owner owner) {
+				chunk.owners().add(owner);
+			}
+			else {
+				chunk.errors().add((String) result);
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Convert and validate the given record.
+	 * @return the owner, or the reason it was rejected
+	 */
+	private Object toOwner(Line line) {
+		OwnerRecord record = line.record();
+		Owner owner = new Owner();
+		owner.setFirstName(record.firstName());
+		owner.setLastName(record.lastName());
+		owner.setAddress(record.address());
+		owner.setCity(record.city());
+		owner.setTelephone(record.telephone());
+		Set<ConstraintViolation<Owner>> violations = this.validator.validate(owner);
+		if (!violations.isEmpty()) {
+			ConstraintViolation<Owner> violation = violations.iterator().next();
+			return reason(line, "owner " + violation.getPropertyPath() + " " + violation.getMessage());
+		}
+		for (PetRecord petRecord : nonNull(record.pets())) {
+			Pet pet = new Pet();
+			pet.setName(petRecord.name());
+			if (petRecord.type() != null) {
+				pet.setType(this.petTypes.findByName(petRecord.type()));
+			}
+			try {
+				pet.setBirthDate(date(petRecord.birthDate()));
+			}
+			catch (DateTimeParseException ex) {
+				return reason(line, "pet " + petRecord.name() + " birthDate is not a date");
+			}
+			Errors errors = new BeanPropertyBindingResult(pet, "pet");
+			this.petValidator.validate(pet, errors);
+			if (pet.getName() != null && owner.getPet(pet.getName()) != null) {
+				errors.rejectValue("name", "duplicate", "already exists");
+			}
+			if (pet.getBirthDate() != null && pet.getBirthDate().isAfter(LocalDate.now())) {
+				errors.rejectValue("birthDate", "typeMismatch.birthDate", "is in the future");
+			}
+			if (errors.hasFieldErrors()) {
+				return reason(line, "pet " + petRecord.name() + " " + errors.getFieldError().getField() + " "
+						+ errors.getFieldError().getDefaultMessage());
+			}
+			for (VisitRecord visitRecord : nonNull(petRecord.visits())) {
+				Visit visit = new Visit();
+				visit.setDescription(visitRecord.description());
+				try {
+					visit.setDate(date(visitRecord.date()));
+				}
+				catch (DateTimeParseException ex) {
+					return reason(line, "visit date is not a date");
+				}
+				Set<ConstraintViolation<Visit>> visitViolations = this.validator.validate(visit);
+				if (!visitViolations.isEmpty()) {
+					ConstraintViolation<Visit> violation = visitViolations.iterator().next();
+					return reason(line, "visit " + violation.getPropertyPath() + " " + violation.getMessage());
+				}
+				pet.addVisit(visit);
+			}
+			owner.addPet(pet);
+		}
+		return owner;
+	}
+
+	private void write(Chunk chunk, Progress progress) {
+		chunk.errors().forEach(progress::reject);
+		if (!chunk.owners().isEmpty()) {
+			this.transactionTemplate
+				.executeWithoutResult((status) -> this.jdbcTemplate.execute((ConnectionCallback<Void>) (connection) -> {
+					insert(connection, chunk.owners(), progress);
+					return null;
+				}));
+			chunk.owners().forEach((owner) -> this.publisher.publishEvent(new OwnerSavedEvent(owner)));
+		}
+		logger.info(String.format("Imported %d owners so far (%d rows/s)", progress.owners,
+				progress.toResult().getRowsPerSecond()));
+	}
+
+	private void insert(Connection connection, List<Owner> owners, Progress progress) throws SQLException {
+		List<Pet> pets = owners.stream().flatMap((owner) -> owner.getPets().stream()).toList();
+		List<Visit> visits = pets.stream().flatMap((pet) -> pet.getVisits().stream()).toList();
+		if (this.idTables.isEnabled()) {
+			reserveIds("owners", owners);
+			reserveIds("pets", pets);
+			reserveIds("visits", visits);
+		}
+		try (PreparedStatement statement = prepare(connection, INSERT_OWNER)) {
+			for (Owner owner : owners) {
+				statement.setString(1, owner.getFirstName());
+				statement.setString(2, owner.getLastName());
+				statement.setString(3, owner.getAddress());
+				statement.setString(4, owner.getCity());
+				statement.setString(5, owner.getTelephone());
+				statement.setString(6, owner.getLastNameSoundex());
+				bindId(statement, 7, owner);
+				statement.addBatch();
+			}
+			statement.executeBatch();
+			assignGeneratedKeys(statement, owners);
+		}
+		try (PreparedStatement statement = prepare(connection, INSERT_PET)) {
+			for (Owner owner : owners) {
+				for (Pet pet : owner.getPets()) {
+					statement.setString(1, pet.getName());
+					statement.setDate(2, Date.valueOf(pet.getBirthDate()));
+					statement.setInt(3, pet.getType().getId());
+					statement.setInt(4, owner.getId());
+					bindId(statement, 5, pet);
+					statement.addBatch();
+				}
+			}
+			if (!pets.isEmpty()) {
+				statement.executeBatch();
+				assignGeneratedKeys(statement, pets);
+			}
+		}
+		try (PreparedStatement statement = prepare(connection, INSERT_VISIT)) {
+			for (Pet pet : pets) {
+				for (Visit visit : pet.getVisits()) {
+					statement.setInt(1, pet.getId());
+					statement.setDate(2, visit.getDate() != null ? Date.valueOf(visit.getDate()) : null);
+					statement.setString(3, visit.getDescription());
+					bindId(statement, 4, visit);
+					statement.addBatch();
+				}
+			}
+			if (!visits.isEmpty()) {
+				statement.executeBatch();
+			}
+		}
+		progress.owners += owners.size();
+		progress.pets += pets.size();
+		progress.visits += visits.size();
+	}
+
+	private void reserveIds(String table, List<? extends BaseEntity> entities) {
+		if (!entities.isEmpty()) {
+			int id = this.idTables.reserve(table, entities.size());
+			for (BaseEntity entity : entities) {
+				entity.setId(id++);
+			}
+		}
+	}
+
+	/**
+	 * Prepare the given insert, with the id as the last parameter when ids come from
+	 * {@link IdTables}, and returning the generated keys otherwise.
+	 */
+	private PreparedStatement prepare(Connection connection, String insert) throws SQLException {
+		if (this.idTables.isEnabled()) {
+			return connection.prepareStatement(String.format(insert, ", id", ", ?"));
+		}
+		return connection.prepareStatement(String.format(insert, "", ""), Statement.RETURN_GENERATED_KEYS);
+	}
+
+	private void bindId(PreparedStatement statement, int index, BaseEntity entity) throws SQLException {
+		if (this.idTables.isEnabled()) {
+			statement.setInt(index, entity.getId());
+		}
+	}
+
+	private void assignGeneratedKeys(Statement statement, List<? extends BaseEntity> entities) throws SQLException {
+		if (this.idTables.isEnabled()) {
+			return;
+		}
+		try (ResultSet keys = statement.getGeneratedKeys()) {
+			for (BaseEntity entity : entities) {
+				if (!keys.next()) {
+					throw new IncorrectResultSizeDataAccessException(
+							"Driver did not return a generated key for every batched row", entities.size());
+				}
+				entity.setId(keys.getInt(1));
+			}
+		}
+	}
+
+	private static LocalDate date(String value) {
+		return (value != null ? LocalDate.parse(value) : null);
+	}
+
+	private static <T> List<T> nonNull(List<T> list) {
+		return (list != null ? list : Collections.emptyList());
+	}
+
+	private static String reason(Line line, String message) {
+		return "line " + line.number() + ": " + message;
+	}
+
+	private record Line(long number, OwnerRecord record) {
+	}
+
+	private record Chunk(List<Owner> owners, List<String> errors) {
+	}
+
+	private static class Progress {
+
+		private final long started;
+
+		private long owners;
+
+		private long pets;
+
+		private long visits;
+
+		private long rejected;
+
+		private final List<String> errors = new ArrayList<>();
+
+		Progress(long started) {
+			this.started = started;
+		}
+
+		void reject(long line, String message) {
+			reject("line " + line + ": " + message);
+		}
+
+		void reject(String reason) {
+			this.rejected++;
+			if (this.errors.size() < MAX_ERRORS) {
+				this.errors.add(reason);
+			}
+		}
+
+		ImportResult toResult() {
+			return new ImportResult(this.owners, this.pets, this.visits, this.rejected, List.copyOf(this.errors),
+					System.currentTimeMillis() - this.started);
+		}
+
+	}
+
+}
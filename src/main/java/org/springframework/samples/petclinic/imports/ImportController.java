@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bulk imports of owners with their pets and visits, e.g.
+ * {@code curl -T owners.ndjson.gz -H 'Content-Encoding: gzip' /import?format=ndjson}.
+ */
+@Controller
+class ImportController {
+
+	private final BulkImporter importer;
+
+	public ImportController(BulkImporter importer) {
+		this.importer = importer;
+	}
+
+	@PostMapping("/import")
+	public @ResponseBody ImportResult importOwners(InputStream body,
+			@RequestParam(defaultValue = "ndjson") String format,
+			@RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String encoding) throws IOException {
+		ImportFormat importFormat = importFormat(format);
+		InputStream in = "gzip".equalsIgnoreCase(encoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+		return this.importer.importFrom(in, importFormat);
+	}
+
+	private static ImportFormat importFormat(String format) {
+		try {
+			return ImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown import format: " + format, ex);
+		}
+	}
+
+}
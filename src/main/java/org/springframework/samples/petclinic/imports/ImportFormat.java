@@ -0,0 +1,305 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.springframework.samples.petclinic.imports.OwnerRecord.PetRecord;
+import org.springframework.samples.petclinic.imports.OwnerRecord.VisitRecord;
+
+/**
+ * The formats owners can be imported from. Both are read one record at a time, so the
+ * size of an import is not limited by memory.
+ */
+public enum ImportFormat {
+
+	/**
+	 * Newline-delimited JSON: one owner per line, with its pets and their visits nested,
+	 * e.g. <pre class="code">
+	 * {"firstName":"George","lastName":"Franklin","address":"110 W. Liberty St.","city":"Madison",
+	 *  "telephone":"6085551023","pets":[{"name":"Leo","birthDate":"2010-09-07","type":"cat",
+	 *  "visits":[{"date":"2013-01-01","description":"rabies shot"}]}]}
+	 * </pre>
+	 */
+	NDJSON {
+
+		@Override
+		RecordReader open(InputStream in) {
+			BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+			return new RecordReader() {
+
+				private long line;
+
+				@Override
+				public OwnerRecord next() throws IOException {
+					String json;
+					do {
+						json = lines.readLine();
+						if (json == null) {
+							return null;
+						}
+						this.line++;
+					}
+					while (json.isBlank());
+					try {
+						return JSON.readValue(json);
+					}
+					catch (JsonProcessingException ex) {
+						throw new InvalidRecordException(ex.getOriginalMessage());
+					}
+				}
+
+				@Override
+				public long line() {
+					return this.line;
+				}
+
+			};
+		}
+
+	},
+
+	/**
+	 * Comma-separated values with a header row, quoted as described in RFC 4180. The
+	 * columns are {@code first_name}, {@code last_name}, {@code address}, {@code city},
+	 * {@code telephone} and optionally {@code pet_name}, {@code pet_birth_date},
+	 * {@code pet_type}, {@code visit_date} and {@code visit_description}. Consecutive
+	 * rows for the same owner add further pets to it, and consecutive rows for the same
+	 * pet add further visits.
+	 */
+	CSV {
+
+		@Override
+		RecordReader open(InputStream in) throws IOException {
+			CsvRows rows = new CsvRows(new InputStreamReader(in, StandardCharsets.UTF_8));
+			List<String> header = rows.next();
+			if (header == null) {
+				throw new InvalidRecordException("missing header row");
+			}
+			Map<String, Integer> columns = new HashMap<>();
+			for (int i = 0; i < header.size(); i++) {
+				columns.put(header.get(i).trim().toLowerCase(), i);
+			}
+			return new RecordReader() {
+
+				private List<String> pending = rows.next();
+
+				private long line;
+
+				@Override
+				public OwnerRecord next() throws IOException {
+					if (this.pending == null) {
+						return null;
+					}
+					this.line = rows.line();
+					List<String> row = this.pending;
+					OwnerRecord owner = new OwnerRecord(value(row, "first_name"), value(row, "last_name"),
+							value(row, "address"), value(row, "city"), value(row, "telephone"), new ArrayList<>());
+					while (row != null && sameOwner(owner, row)) {
+						addPet(owner, row);
+						row = rows.next();
+					}
+					this.pending = row;
+					return owner;
+				}
+
+				@Override
+				public long line() {
+					return this.line;
+				}
+
+				private boolean sameOwner(OwnerRecord owner, List<String> row) {
+					return Objects.equals(owner.firstName(), value(row, "first_name"))
+							&& Objects.equals(owner.lastName(), value(row, "last_name"))
+							&& Objects.equals(owner.address(), value(row, "address"))
+							&& Objects.equals(owner.city(), value(row, "city"))
+							&& Objects.equals(owner.telephone(), value(row, "telephone"));
+				}
+
+				private void addPet(OwnerRecord owner, List<String> row) {
+					String name = value(row, "pet_name");
+					if (name == null) {
+						return;
+					}
+					List<PetRecord> pets = owner.pets();
+					PetRecord pet = pets.isEmpty() ? null : pets.get(pets.size() - 1);
+					if (pet == null || !name.equals(pet.name())) {
+						pet = new PetRecord(name, value(row, "pet_birth_date"), value(row, "pet_type"),
+								new ArrayList<>());
+						pets.add(pet);
+					}
+					String date = value(row, "visit_date");
+					String description = value(row, "visit_description");
+					if (date != null || description != null) {
+						pet.visits().add(new VisitRecord(date, description));
+					}
+				}
+
+				private String value(List<String> row, String column) {
+					Integer index = columns.get(column);
+					if (index == null || index >= row.size() || row.get(index).isEmpty()) {
+						return null;
+					}
+					return row.get(index);
+				}
+
+			};
+		}
+
+	};
+
+	private static final ObjectReader JSON = new ObjectMapper()
+		.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+		.readerFor(OwnerRecord.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Start reading owners from the given stream.
+	 */
+	abstract RecordReader open(InputStream in) throws IOException;
+
+	/**
+	 * Reads the owners of one import.
+	 */
+	interface RecordReader {
+
+		/**
+		 * Read the next owner.
+		 * @return the owner, or {@literal null} at the end of the input
+		 * @throws InvalidRecordException if the next record cannot be parsed; reading may
+		 * continue with the record after it
+		 */
+		OwnerRecord next() throws IOException;
+
+		/**
+		 * Return the line the last record started on, for error reports.
+		 */
+		long line();
+
+	}
+
+	/**
+	 * Thrown when a record cannot be parsed.
+	 */
+	static class InvalidRecordException extends IOException {
+
+		InvalidRecordException(String message) {
+			super(message);
+		}
+
+	}
+
+	/**
+	 * Splits RFC 4180 input into rows of values. Quoted values may contain separators,
+	 * quotes and line breaks.
+	 */
+	private static class CsvRows {
+
+		private final Reader reader;
+
+		private long line;
+
+		private long nextLine = 1;
+
+		CsvRows(Reader reader) {
+			this.reader = new BufferedReader(reader, BUFFER_SIZE);
+		}
+
+		long line() {
+			return this.line;
+		}
+
+		List<String> next() throws IOException {
+			List<String> row;
+			do {
+				row = readRow();
+			}
+			while (row != null && row.size() == 1 && row.get(0).isEmpty());
+			return row;
+		}
+
+		private List<String> readRow() throws IOException {
+			List<String> row = new ArrayList<>();
+			StringBuilder value = new StringBuilder();
+			boolean quoted = false;
+			boolean empty = true;
+			this.line = this.nextLine;
+			int c;
+			while ((c = this.reader.read()) != -1) {
+				empty = false;
+				if (quoted) {
+					if (c == '"') {
+						this.reader.mark(1);
+						if (this.reader.read() == '"') {
+							value.append('"');
+						}
+						else {
+							this.reader.reset();
+							quoted = false;
+						}
+					}
+					else {
+						if (c == '\n') {
+							this.nextLine++;
+						}
+						value.append((char) c);
+					}
+				}
+				else if (c == '"') {
+					quoted = true;
+				}
+				else if (c == ',') {
+					row.add(value.toString());
+					value.setLength(0);
+				}
+				else if (c == '\n') {
+					this.nextLine++;
+					row.add(value.toString());
+					return row;
+				}
+				else if (c != '\r') {
+					value.append((char) c);
+				}
+			}
+			if (quoted) {
+				throw new InvalidRecordException("unterminated quoted value");
+			}
+			if (empty) {
+				return null;
+			}
+			row.add(value.toString());
+			return row;
+		}
+
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk import.
+ *
+ * @param owners the number of owners stored
+ * @param pets the number of pets stored
+ * @param visits the number of visits stored
+ * @param rejected the number of owner records that were rejected with all their pets and
+ * visits
+ * @param errors the reasons for the first rejections, by line
+ * @param millis the time the import took
+ */
+public record ImportResult(long owners, long pets, long visits, long rejected, List<String> errors, long millis) {
+
+	/**
+	 * Return the number of rows stored per second.
+	 */
+	public long getRowsPerSecond() {
+		return (this.millis > 0 ? (this.owners + this.pets + this.visits) * 1000 / this.millis : 0);
+	}
+
+}
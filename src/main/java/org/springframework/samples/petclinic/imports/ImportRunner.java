@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports the file given as {@code petclinic.import.file} on startup and then exits, e.g.
+ * {@code java -jar petclinic.jar --spring.main.web-application-type=none --petclinic.import.file=owners.csv.gz}.
+ * The format is taken from the file extension unless {@code petclinic.import.format} is
+ * set. Rejected records are logged, and the exit code is 1 if there were any;
+ * {@link org.springframework.samples.petclinic.PetClinicApplication} exits through
+ * {@link org.springframework.boot.SpringApplication#exit}.
+ */
+@Component
+@ConditionalOnProperty("petclinic.import.file")
+class ImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+	private static final Log logger = LogFactory.getLog(ImportRunner.class);
+
+	private final BulkImporter importer;
+
+	private final Path file;
+
+	private final String format;
+
+	private int exitCode;
+
+	ImportRunner(BulkImporter importer, @Value("${petclinic.import.file}") Path file,
+			@Value("${petclinic.import.format:}") String format) {
+		this.importer = importer;
+		this.file = file;
+		this.format = format;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		String name = this.file.getFileName().toString().toLowerCase(Locale.ROOT);
+		boolean gzip = name.endsWith(".gz");
+		if (gzip) {
+			name = name.substring(0, name.length() - 3);
+		}
+		String extension = this.format.isEmpty() ? name.substring(name.lastIndexOf('.') + 1) : this.format;
+		ImportFormat importFormat = ImportFormat.valueOf(extension.toUpperCase(Locale.ROOT));
+		ImportResult result;
+		try (InputStream in = Files.newInputStream(this.file)) {
+			result = this.importer.importFrom(gzip ? new GZIPInputStream(in, 64 * 1024) : in, importFormat);
+		}
+		result.errors().forEach((error) -> logger.warn("Rejected " + error));
+		this.exitCode = (result.rejected() > 0) ? 1 : 0;
+	}
+
+	@Override
+	public int getExitCode() {
+		return this.exitCode;
+	}
+
+}
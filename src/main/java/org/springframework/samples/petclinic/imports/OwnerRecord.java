@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.imports;
+
+import java.util.List;
+
+/**
+ * An owner as read from an import file, together with the pets and visits that belong to
+ * it. Values are kept as read and are only converted and validated later, so that a bad
+ * record is rejected instead of aborting the import.
+ *
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param address the address
+ * @param city the city
+ * @param telephone the telephone number
+ * @param pets the pets, may be {@literal null}
+ */
+public record OwnerRecord(String firstName, String lastName, String address, String city, String telephone,
+		List<PetRecord> pets) {
+
+	/**
+	 * A pet of an imported owner.
+	 *
+	 * @param name the name
+	 * @param birthDate the birth date as {@code yyyy-MM-dd}
+	 * @param type the name of the pet type, e.g. {@code cat}
+	 * @param visits the visits, may be {@literal null}
+	 */
+	public record PetRecord(String name, String birthDate, String type, List<VisitRecord> visits) {
+	}
+
+	/**
+	 * A visit of an imported pet.
+	 *
+	 * @param date the date as {@code yyyy-MM-dd}
+	 * @param description the description
+	 */
+	public record VisitRecord(String date, String description) {
+	}
+
+}
@@ -17,14 +17,18 @@ package org.springframework.samples.petclinic.model;
 
 import java.io.Serializable;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 
 /**
- * Simple JavaBean domain object with an id property. Used as a base class for objects
- * needing this property.
+ * Simple JavaBean domain object with an id and an optimistic locking version property.
+ * Used as a base class for objects needing these properties. Ids are generated by
+ * identity columns, or taken from a sequence per table in blocks with the
+ * {@code pooled-ids} profile, so that inserts can be batched.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -36,6 +40,10 @@ public class BaseEntity implements Serializable {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Integer id;
 
+	@Version
+	@Column(name = "version")
+	private Integer version;
+
 	public Integer getId() {
 		return id;
 	}
@@ -44,6 +52,18 @@ public class BaseEntity implements Serializable {
 		this.id = id;
 	}
 
+	/**
+	 * Return the version, which is incremented on every update and is {@literal null}
+	 * until the entity is first stored.
+	 */
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	public boolean isNew() {
 		return this.id == null;
 	}
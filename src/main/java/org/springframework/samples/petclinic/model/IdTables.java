@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves ids from the {@code
+ *
+<table>
+ * _id_seq} tables that stand in for sequences on MySQL with the {@code pooled-ids}
+ * profile, where it is enabled with {@code petclinic.ids.tables=true}. Hibernate
+ * allocates its blocks of ids from these tables, which {@code AUTO_INCREMENT} knows
+ * nothing about, so rows inserted with SQL have to take their ids from the same tables.
+ * On the other databases such rows draw their ids from the sequence themselves.
+ */
+@Component
+public class IdTables {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final boolean enabled;
+
+	public IdTables(DataSource dataSource, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.ids.tables:false}") boolean enabled) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Whether rows inserted with SQL must be given an id from {@link #reserve}.
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Reserve consecutive ids for the given table. Like Hibernate, the id table is
+	 * updated in a transaction of its own, so that it is not locked until the caller
+	 * commits.
+	 * @param table the table the ids are for, such as {@code owners}
+	 * @param count the number of ids to reserve
+	 * @return the first id reserved
+	 */
+	public int reserve(String table, int count) {
+		String idTable = table + "_id_seq";
+		return this.transactionTemplate.execute((status) -> {
+			int next = this.jdbcTemplate.queryForObject("SELECT next_val FROM " + idTable + " FOR UPDATE",
+					Integer.class);
+			this.jdbcTemplate.update("UPDATE " + idTable + " SET next_val = ?", next + count);
+			return next;
+		});
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.Map;
+
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.relational.QualifiedName;
+import org.hibernate.boot.model.relational.QualifiedNameParser;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.ImplicitDatabaseObjectNamingStrategy;
+import org.hibernate.id.enhanced.StandardNamingStrategy;
+import org.hibernate.service.ServiceRegistry;
+
+/**
+ * Names the sequence an entity takes its ids from after its table and id column, like
+ * {@code owners_id_seq}: the name PostgreSQL gives the sequence behind an identity
+ * column, and the one the schema scripts of the other databases use for the sequence
+ * their id column defaults to. Used by the {@code pooled-ids} profile.
+ */
+public class TableSequenceNamingStrategy implements ImplicitDatabaseObjectNamingStrategy {
+
+	private final ImplicitDatabaseObjectNamingStrategy standard = new StandardNamingStrategy();
+
+	@Override
+	public QualifiedName determineSequenceName(Identifier catalogName, Identifier schemaName, Map<?, ?> configValues,
+			ServiceRegistry serviceRegistry) {
+		Object table = configValues.get(PersistentIdentifierGenerator.TABLE);
+		Object column = configValues.get(PersistentIdentifierGenerator.PK);
+		if (table == null || column == null) {
+			return this.standard.determineSequenceName(catalogName, schemaName, configValues, serviceRegistry);
+		}
+		return new QualifiedNameParser.NameParts(catalogName, schemaName,
+				Identifier.toIdentifier(table + "_" + column + "_seq"));
+	}
+
+	@Override
+	public QualifiedName determineTableName(Identifier catalogName, Identifier schemaName, Map<?, ?> configValues,
+			ServiceRegistry serviceRegistry) {
+		return determineSequenceName(catalogName, schemaName, configValues, serviceRegistry);
+	}
+
+}
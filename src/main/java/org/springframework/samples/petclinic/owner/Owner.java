@@ -16,9 +16,11 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.samples.petclinic.model.Person;
 import org.springframework.util.Assert;
 
@@ -27,6 +29,9 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
@@ -44,8 +49,16 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity
 @Table(name = "owners")
+@NamedEntityGraph(name = Owner.PETS, attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pets"),
+		subgraphs = @NamedSubgraph(name = "pets", attributeNodes = @NamedAttributeNode("type")))
 public class Owner extends Person {
 
+	/**
+	 * Name of the entity graph of an owner with its pets and their types: everything the
+	 * owner pages and forms render, fetched in one query.
+	 */
+	public static final String PETS = "Owner.pets";
+
 	@Column(name = "address")
 	@NotBlank
 	private String address;
@@ -59,11 +72,27 @@ public class Owner extends Person {
 	@Digits(fraction = 0, integer = 10)
 	private String telephone;
 
+	/**
+	 * Soundex key of the last name, kept in step with it for the fuzzy owner search.
+	 */
+	@Column(name = "last_name_soundex")
+	private String lastNameSoundex;
+
 	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
 	@JoinColumn(name = "owner_id")
 	@OrderBy("name")
 	private List<Pet> pets = new ArrayList<>();
 
+	@Override
+	public void setLastName(String lastName) {
+		super.setLastName(lastName);
+		this.lastNameSoundex = Phonetics.soundex(lastName);
+	}
+
+	public String getLastNameSoundex() {
+		return this.lastNameSoundex;
+	}
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -171,4 +200,13 @@ public class Owner extends Person {
 		pet.addVisit(visit);
 	}
 
+	/**
+	 * Event published by {@link OwnerRepository#save(Owner)} once this owner has been
+	 * written.
+	 */
+	@DomainEvents
+	Collection<OwnerSavedEvent> domainEvents() {
+		return List.of(new OwnerSavedEvent(this));
+	}
+
 }
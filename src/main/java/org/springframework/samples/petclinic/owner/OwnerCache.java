@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.system.ReadAfterWrite;
+import org.springframework.samples.petclinic.system.SingleFlightGroup;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Optional, bounded second-level cache of the {@link OwnerDetails} shown on the owner
+ * details page. Enable it with {@code petclinic.owners.cache.enabled=true}; entries are
+ * evicted as soon as the owner is saved again, and otherwise expire after
+ * {@code petclinic.owners.cache.expire-after-write}. Without the cache, concurrent
+ * requests for the same owner still share one load through a {@link SingleFlightGroup}. A
+ * request that must see its own writes loads the owner itself, and so does a request that
+ * knows of a later version than the shared one, for example because it was loaded from a
+ * replica that had not caught up yet.
+ * <p>
+ * Cached and coalesced owners are shared between requests, so they must only be used for
+ * rendering, never bound to a form or modified.
+ */
+@Component
+class OwnerCache {
+
+	private static final int RECENT_VISITS = 5;
+
+	private final OwnerLoader loader;
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Cache<Integer, OwnerDetails> cache;
+
+	private final SingleFlightGroup<Integer, OwnerDetails> loads;
+
+	OwnerCache(OwnerLoader loader, OwnerRepository owners, VisitRepository visits,
+			PlatformTransactionManager transactionManager, MeterRegistry registry,
+			@Value("${petclinic.owners.cache.enabled:false}") boolean enabled,
+			@Value("${petclinic.singleflight.enabled:true}") boolean singleFlight,
+			@Value("${petclinic.owners.cache.maximum-size:10000}") long maximumSize,
+			@Value("${petclinic.owners.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+		this.loader = loader;
+		this.owners = owners;
+		this.visits = visits;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		if (enabled) {
+			this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+			CaffeineCacheMetrics.monitor(registry, this.cache, "owners",
+					Tags.of("cache.manager", "ownerCache", "name", "owners"));
+		}
+		else {
+			this.cache = null;
+		}
+		this.loads = singleFlight ? new SingleFlightGroup<>("OwnerCache.findDetailsById", registry) : null;
+	}
+
+	/**
+	 * Return the details of the {@link Owner} with the given id, from memory if possible.
+	 * @param id the id to search for
+	 * @param version the latest aggregate version the caller knows of
+	 * @return the {@link OwnerDetails}, or {@literal null} if there is no such owner
+	 */
+	OwnerDetails findDetailsById(int id, long version) {
+		if (ReadAfterWrite.mustSeeOwnWrites()) {
+			return loadDetails(id);
+		}
+		OwnerDetails details = findSharedDetailsById(id);
+		if (details != null && details.version() < version) {
+			details = loadDetails(id);
+			if (this.cache != null && details != null) {
+				this.cache.asMap()
+					.merge(id, details, (cached, loaded) -> (cached.version() >= loaded.version()) ? cached : loaded);
+			}
+		}
+		return details;
+	}
+
+	private OwnerDetails findSharedDetailsById(int id) {
+		if (this.cache != null) {
+			// concurrent misses for the same owner already share one load
+			return this.cache.get(id, this::loadDetails);
+		}
+		if (this.loads != null) {
+			return this.loads.call(id, () -> loadDetails(id));
+		}
+		return loadDetails(id);
+	}
+
+	/**
+	 * Load the owner, its recent visits and its aggregate version in one transaction, so
+	 * that they come from the same database even with read replicas.
+	 */
+	private OwnerDetails loadDetails(int id) {
+		return this.transactionTemplate.execute((status) -> {
+			Long version = this.owners.findAggregateVersionById(id);
+			Owner owner = (version != null) ? this.loader.findById(id) : null;
+			if (owner == null) {
+				return null;
+			}
+			Map<Integer, Slice<Visit>> recentVisits = new HashMap<>();
+			for (Pet pet : owner.getPets()) {
+				recentVisits.put(pet.getId(), this.visits.findByPetId(pet.getId(), PageRequest.ofSize(RECENT_VISITS)));
+			}
+			return new OwnerDetails(owner, recentVisits, version);
+		});
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void ownerSaved(OwnerSavedEvent event) {
+		if (this.cache != null) {
+			this.cache.invalidate(event.owner().getId());
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void visitAdded(VisitAddedEvent event) {
+		if (this.cache != null) {
+			this.cache.invalidate(event.ownerId());
+		}
+	}
+
+}
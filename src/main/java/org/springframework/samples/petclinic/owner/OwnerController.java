@@ -15,24 +15,35 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.ModelAndView;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 /**
@@ -46,20 +57,37 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
+	private static final int MAX_SUGGESTIONS = 50;
+
+	private static final int FUZZY_RESULTS = 20;
+
+	private static final int MAX_BATCH = 1000;
+
 	private final OwnerRepository owners;
 
-	public OwnerController(OwnerRepository clinicService) {
+	private final OwnerLoader loader;
+
+	private final OwnerCache cache;
+
+	private final OwnerNameIndex names;
+
+	private final OwnerFuzzySearch fuzzySearch;
+
+	private final OwnerTelephoneIndex telephones;
+
+	public OwnerController(OwnerRepository clinicService, OwnerLoader loader, OwnerCache cache, OwnerNameIndex names,
+			OwnerFuzzySearch fuzzySearch, OwnerTelephoneIndex telephones) {
 		this.owners = clinicService;
+		this.loader = loader;
+		this.cache = cache;
+		this.names = names;
+		this.fuzzySearch = fuzzySearch;
+		this.telephones = telephones;
 	}
 
 	@InitBinder
 	public void setAllowedFields(WebDataBinder dataBinder) {
-		dataBinder.setDisallowedFields("id");
-	}
-
-	@ModelAttribute("owner")
-	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner() : this.owners.findById(ownerId);
+		dataBinder.setDisallowedFields("id", "version");
 	}
 
 	@GetMapping("/owners/new")
@@ -80,38 +108,151 @@ class OwnerController {
 	}
 
 	@GetMapping("/owners/find")
-	public String initFindForm() {
+	public String initFindForm(Map<String, Object> model) {
+		model.put("owner", new Owner());
 		return "owners/findOwners";
 	}
 
+	/**
+	 * Suggest owners whose last name, optionally followed by a space and the start of the
+	 * first name, starts with the given prefix. Served from memory.
+	 */
+	@GetMapping("/owners/autocomplete")
+	@ResponseBody
+	public List<OwnerNameIndex.Match> autocomplete(@RequestParam("q") String prefix,
+			@RequestParam(defaultValue = "10") int limit) {
+		return this.names.find(prefix, Math.max(0, Math.min(limit, MAX_SUGGESTIONS)));
+	}
+
+	/**
+	 * Identify the owners with the given telephone number, in any formatting. The owner
+	 * ids come from memory and their summaries are then loaded by primary key.
+	 */
+	@GetMapping("/owners/telephone")
+	@ResponseBody
+	public List<OwnerSummary> findByTelephone(@RequestParam("number") String telephone) {
+		int[] ids = this.telephones.findOwnerIds(telephone);
+		if (ids.length == 0) {
+			return List.of();
+		}
+		return this.owners.findSummariesByIdIn(Arrays.stream(ids).boxed().toList());
+	}
+
+	/**
+	 * Look up to {@value #MAX_BATCH} owners by id at once, with their pets, e.g.
+	 * {@code /owners/batch?ids=1,2,3}. The owners are listed in the order of their first
+	 * mention; ids without an owner, and empty ones such as in {@code ids=1,,2}, are left
+	 * out.
+	 */
+	@GetMapping("/owners/batch")
+	@ResponseBody
+	public List<OwnerResource> findByIds(@RequestParam("ids") List<Integer> requested) {
+		List<Integer> ids = requested.stream().filter(Objects::nonNull).toList();
+		if (ids.size() > MAX_BATCH) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH + " ids per request");
+		}
+		Map<Integer, Owner> owners = new HashMap<>();
+		for (Owner owner : this.owners.findAllById(ids)) {
+			owners.put(owner.getId(), owner);
+		}
+		return new LinkedHashSet<>(ids).stream()
+			.map(owners::get)
+			.filter(Objects::nonNull)
+			.map(OwnerResource::of)
+			.toList();
+	}
+
+	/**
+	 * Search owners by last name. Results are paged by offset unless a {@code cursor}
+	 * parameter is present, in which case they are paged by (last name, id) keyset: an
+	 * empty cursor starts from the first page and each page links to the next one through
+	 * an opaque continuation token. With {@code fuzzy=true}, or when no last name starts
+	 * with the given one, owners with similar last names are listed instead.
+	 */
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean fuzzy,
+			Owner owner, BindingResult result, Model model) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
+		if (fuzzy) {
+			return processFuzzyFindForm(owner, result, model);
+		}
+
+		if (cursor != null) {
+			return processKeysetFindForm(decodeCursor(cursor), owner, result, model);
+		}
+
 		// find owners by last name
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		Page<OwnerSummary> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
 		if (ownersResults.isEmpty()) {
-			// no owners found
-			result.rejectValue("lastName", "notFound", "not found");
-			return "owners/findOwners";
+			// no owners found, maybe the name was misspelled
+			return processFuzzyFindForm(owner, result, model);
 		}
 
 		if (ownersResults.getTotalElements() == 1) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			return "redirect:/owners/" + ownersResults.iterator().next().id();
 		}
 
 		// multiple owners found
 		return addPaginationModel(page, model, ownersResults);
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
+	private static OwnerCursor decodeCursor(String cursor) {
+		try {
+			return OwnerCursor.decode(cursor);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+		}
+	}
+
+	private String processKeysetFindForm(OwnerCursor cursor, Owner owner, BindingResult result, Model model) {
+		int pageSize = 5;
+		Slice<OwnerSummary> ownersResults = this.owners.findSummariesByLastNameAfter(owner.getLastName(),
+				cursor.lastName(), cursor.id(), PageRequest.ofSize(pageSize));
+		boolean firstPage = cursor.equals(OwnerCursor.START);
+		if (ownersResults.isEmpty() && firstPage) {
+			// no owners found, maybe the name was misspelled
+			return processFuzzyFindForm(owner, result, model);
+		}
+
+		if (ownersResults.getNumberOfElements() == 1 && firstPage && !ownersResults.hasNext()) {
+			// 1 owner found
+			return "redirect:/owners/" + ownersResults.iterator().next().id();
+		}
+
+		// multiple owners found
+		List<OwnerSummary> listOwners = ownersResults.getContent();
+		model.addAttribute("lastName", owner.getLastName());
+		model.addAttribute("approximateTotal", this.owners.countByLastName(owner.getLastName()));
+		if (ownersResults.hasNext()) {
+			model.addAttribute("nextCursor", OwnerCursor.after(listOwners.get(listOwners.size() - 1)).encode());
+		}
+		model.addAttribute("listOwners", listOwners);
+		return "owners/ownersList";
+	}
+
+	private String processFuzzyFindForm(Owner owner, BindingResult result, Model model) {
+		List<OwnerSummary> listOwners = this.fuzzySearch.find(owner.getLastName(), FUZZY_RESULTS);
+		if (listOwners.isEmpty()) {
+			// no owners found
+			result.rejectValue("lastName", "notFound", "not found");
+			return "owners/findOwners";
+		}
+
+		// similar owners found, listed for the user to pick even if there is only one
+		model.addAttribute("similarTo", owner.getLastName());
+		model.addAttribute("listOwners", listOwners);
+		return "owners/ownersList";
+	}
+
+	private String addPaginationModel(int page, Model model, Page<OwnerSummary> paginated) {
+		List<OwnerSummary> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
@@ -119,42 +260,82 @@ class OwnerController {
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
+	private Page<OwnerSummary> findPaginatedForOwnersLastName(int page, String lastname) {
 		int pageSize = 5;
 		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
+		return owners.findSummariesByLastName(lastname, pageable);
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
 	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.loader.findById(ownerId);
 		model.addAttribute(owner);
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/owners/{ownerId}/edit")
-	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result,
-			@PathVariable("ownerId") int ownerId) {
+	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId,
+			@RequestParam(required = false) Integer version) {
+		owner.setId(ownerId);
+		owner.setVersion(version);
 		if (result.hasErrors()) {
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 
-		owner.setId(ownerId);
-		this.owners.save(owner);
+		// the form only carries the owner's own fields, so apply them to the stored
+		// aggregate rather than saving the form object over its pets
+		Owner existing = this.loader.findById(ownerId);
+		if (version != null && !version.equals(existing.getVersion())) {
+			// saved by someone else since the form was shown: let the user review the
+			// current state, and overwrite it only if the form is submitted again
+			result.reject("concurrentModification");
+			owner.setVersion(existing.getVersion());
+			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+		}
+		existing.setFirstName(owner.getFirstName());
+		existing.setLastName(owner.getLastName());
+		existing.setAddress(owner.getAddress());
+		existing.setCity(owner.getCity());
+		existing.setTelephone(owner.getTelephone());
+		this.owners.save(existing);
 		return "redirect:/owners/{ownerId}";
 	}
 
 	/**
-	 * Custom handler for displaying an owner.
+	 * Custom handler for displaying an owner. The page carries an entity tag derived from
+	 * the aggregate version and the locale it is rendered in, so a matching
+	 * {@code If-None-Match} is answered with 304 before the owner is loaded. The tag of a
+	 * rendered page is that of the version actually shown, which may be older than the
+	 * one just looked up if the owner came from a lagging replica.
 	 * @param ownerId the ID of the owner to display
-	 * @return a ModelMap with the model attributes for the view
+	 * @return a ModelMap with the model attributes for the view, or {@literal null} if
+	 * the client's copy is current
 	 */
 	@GetMapping("/owners/{ownerId}")
-	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
+	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId, Locale locale, WebRequest request,
+			HttpServletResponse response) {
+		Long version = this.owners.findAggregateVersionById(ownerId);
+		if (version != null) {
+			response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE);
+			if (request.checkNotModified(ownerTag(ownerId, version, locale))) {
+				return null;
+			}
+		}
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Owner owner = this.owners.findById(ownerId);
-		mav.addObject(owner);
+		OwnerDetails details = this.cache.findDetailsById(ownerId, (version != null) ? version : 0);
+		if (details == null) {
+			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
+		}
+		if (version == null || details.version() != version) {
+			response.setHeader(HttpHeaders.ETAG, '"' + ownerTag(ownerId, details.version(), locale) + '"');
+		}
+		mav.addObject(details.owner());
+		mav.addObject("recentVisits", details.recentVisits());
 		return mav;
 	}
 
+	private static String ownerTag(int ownerId, long version, Locale locale) {
+		return "owner-" + ownerId + "-" + version + "-" + locale.toLanguageTag();
+	}
+
 }
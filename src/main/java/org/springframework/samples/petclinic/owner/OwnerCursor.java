@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last {@link Owner} of a keyset page, exchanged with the browser as an
+ * opaque continuation token.
+ */
+record OwnerCursor(String lastName, int id) {
+
+	static final OwnerCursor START = new OwnerCursor("", 0);
+
+	static OwnerCursor after(OwnerSummary owner) {
+		return new OwnerCursor(owner.lastName(), owner.id());
+	}
+
+	/**
+	 * Decode a token produced by {@link #encode()}; an empty token denotes the first
+	 * page.
+	 * @param token the continuation token sent by the browser
+	 * @return the decoded cursor
+	 * @throws IllegalArgumentException if the token has been tampered with
+	 */
+	static OwnerCursor decode(String token) {
+		if (token.isEmpty()) {
+			return START;
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = decoded.indexOf(':');
+			return new OwnerCursor(decoded.substring(separator + 1), Integer.parseInt(decoded.substring(0, separator)));
+		}
+		catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+			throw new IllegalArgumentException("Invalid owner cursor: " + token, ex);
+		}
+	}
+
+	String encode() {
+		byte[] raw = (this.id + ":" + this.lastName).getBytes(StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+	}
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Map;
+
+import org.springframework.data.domain.Slice;
+
+/**
+ * Everything the owner details page shows: the {@link Owner} with its pets, and the most
+ * recent {@link Visit}s of each pet rather than the full history.
+ *
+ * @param owner the owner with its pets
+ * @param recentVisits the most recent visits, keyed by pet id
+ * @param version the aggregate version the owner was loaded at, see
+ * {@link OwnerRepository#findAggregateVersionById(Integer)}
+ */
+record OwnerDetails(Owner owner, Map<Integer, Slice<Visit>> recentVisits, long version) {
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds owners by a misspelled last name. Candidates are the owners whose last name has
+ * the same {@link Phonetics#soundex Soundex} key, looked up through the index on
+ * {@code owners.last_name_soundex}, which are then ranked in memory by their
+ * {@link Phonetics#distance edit distance} to the name as typed.
+ */
+@Component
+public class OwnerFuzzySearch {
+
+	private static final Log logger = LogFactory.getLog(OwnerFuzzySearch.class);
+
+	/**
+	 * Most owners ranked per search; common keys have thousands of owners in a large
+	 * table, of which the ones beyond this are not considered.
+	 */
+	private static final int MAX_CANDIDATES = 200;
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final OwnerRepository owners;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public OwnerFuzzySearch(OwnerRepository owners, DataSource dataSource) {
+		this.owners = owners;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Return the owners whose last name sounds like the given one and is at most a few
+	 * edits away from it, closest first.
+	 * @param lastName the last name as typed
+	 * @param limit the maximum number of owners to return
+	 * @return the matching owners
+	 */
+	public List<OwnerSummary> find(String lastName, int limit) {
+		String key = Phonetics.soundex(lastName);
+		if (key == null) {
+			return List.of();
+		}
+		String typed = lastName.strip();
+		int maxDistance = Math.max(2, typed.length() / 3);
+		List<Ranked> ranked = new ArrayList<>();
+		for (OwnerSummary owner : this.owners.findSummariesByLastNameSoundex(key, PageRequest.ofSize(MAX_CANDIDATES))) {
+			int distance = Phonetics.distance(typed, owner.lastName());
+			if (distance <= maxDistance) {
+				ranked.add(new Ranked(owner, distance));
+			}
+		}
+		return ranked.stream().sorted(Ranked.ORDER).limit(limit).map(Ranked::owner).toList();
+	}
+
+	/**
+	 * Compute the Soundex keys of owners that were written without one, such as rows
+	 * inserted by scripts or databases created before the keys existed.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		List<Object[]> keys = this.jdbcTemplate.query(
+				"SELECT id, last_name FROM owners WHERE last_name_soundex IS NULL AND last_name IS NOT NULL",
+				(rs, row) -> new Object[] { Phonetics.soundex(rs.getString(2)), rs.getInt(1) });
+		for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+			this.jdbcTemplate.batchUpdate("UPDATE owners SET last_name_soundex = ? WHERE id = ?",
+					keys.subList(from, Math.min(from + BATCH_SIZE, keys.size())));
+		}
+		if (!keys.isEmpty()) {
+			logger.info(String.format("Computed the Soundex key of %d owners", keys.size()));
+		}
+	}
+
+	private record Ranked(OwnerSummary owner, int distance) {
+
+		static final Comparator<Ranked> ORDER = Comparator.comparingInt(Ranked::distance)
+			.thenComparing((ranked) -> ranked.owner().lastName())
+			.thenComparing((ranked) -> ranked.owner().id());
+
+	}
+
+}
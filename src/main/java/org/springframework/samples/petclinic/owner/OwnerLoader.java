@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Request-scoped identity map in front of {@link OwnerRepository#findById(Integer)}.
+ * Several handler and model attribute methods of one request need the same {@link Owner};
+ * each owner graph is loaded from the data store at most once per request and shared from
+ * then on.
+ */
+@Component
+@RequestScope
+class OwnerLoader {
+
+	private final OwnerRepository owners;
+
+	private final MeterRegistry registry;
+
+	private final Map<Integer, Owner> loaded = new HashMap<>();
+
+	private int lookups;
+
+	OwnerLoader(OwnerRepository owners, MeterRegistry registry) {
+		this.owners = owners;
+		this.registry = registry;
+	}
+
+	/**
+	 * Return the {@link Owner} with the given id, loading it on the first call of the
+	 * current request only.
+	 * @param id the id to search for
+	 * @return the {@link Owner}, or {@literal null} if there is none
+	 */
+	Owner findById(int id) {
+		this.lookups++;
+		if (!this.loaded.containsKey(id)) {
+			this.loaded.put(id, this.owners.findById(id));
+		}
+		return this.loaded.get(id);
+	}
+
+	@PreDestroy
+	void recordRequest() {
+		DistributionSummary.builder("petclinic.owners.loads")
+			.description("Owner graphs loaded from the data store per request")
+			.register(this.registry)
+			.record(this.loaded.size());
+		Counter.builder("petclinic.owners.loads.saved")
+			.description("Owner lookups served from the request identity map")
+			.register(this.registry)
+			.increment(this.lookups - this.loaded.size());
+	}
+
+}
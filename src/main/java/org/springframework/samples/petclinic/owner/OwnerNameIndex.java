@@ -0,0 +1,279 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory index of owner names for autocompletion. Owners are kept in an array sorted
+ * by lower-cased "last name first name" and looked up by binary search, so finding the
+ * first matches of a prefix costs a few dozen comparisons whatever the number of owners.
+ * Owners saved since the array was built are kept in a small sorted overlay that is
+ * merged into a new array once it grows past an eighth of it.
+ */
+@Component
+public class OwnerNameIndex implements MeterBinder {
+
+	private static final Log logger = LogFactory.getLog(OwnerNameIndex.class);
+
+	private static final int MIN_OVERLAY_SIZE = 4096;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private volatile Index index = new Index(new Match[0]);
+
+	public OwnerNameIndex(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+	}
+
+	/**
+	 * Return the owners whose "last name first name" starts with the given prefix,
+	 * ignoring case, in alphabetical order.
+	 * @param prefix the start of the last name, optionally followed by a space and the
+	 * start of the first name
+	 * @param limit the maximum number of owners to return
+	 * @return the matching owners
+	 */
+	public List<Match> find(String prefix, int limit) {
+		String key = key(prefix.stripLeading().replaceAll("\\s+", " "));
+		return this.index.find(key, limit);
+	}
+
+	/**
+	 * Rebuild the index from the data store once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void reload() {
+		long start = System.currentTimeMillis();
+		List<Match> owners = this.jdbcTemplate.query("SELECT id, first_name, last_name FROM owners",
+				(rs, row) -> new Match(rs.getInt(1), rs.getString(2), rs.getString(3)));
+		Match[] sorted = owners.toArray(new Match[0]);
+		Arrays.parallelSort(sorted, Match.ORDER);
+		synchronized (this) {
+			Index previous = this.index;
+			Index loaded = new Index(sorted);
+			// Owners saved while loading may or may not be in the array, keep them
+			previous.overlay.values().forEach(loaded::put);
+			this.index = loaded;
+		}
+		logger
+			.info(String.format("Indexed %d owner names in %d ms", sorted.length, System.currentTimeMillis() - start));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void ownerSaved(OwnerSavedEvent event) {
+		Owner owner = event.owner();
+		Match match = new Match(owner.getId(), owner.getFirstName(), owner.getLastName());
+		synchronized (this) {
+			Index current = this.index;
+			if (current.contains(match)) {
+				return;
+			}
+			current.put(match);
+			if (current.overlay.size() > Math.max(MIN_OVERLAY_SIZE, current.sorted.length / 8)) {
+				this.index = current.compact();
+			}
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("petclinic.owners.name.index.size", this, (names) -> names.index.size())
+			.description("Number of owner names held by the autocomplete index")
+			.register(registry);
+	}
+
+	private static String key(String name) {
+		return (name != null ? name.toLowerCase(Locale.ROOT) : "");
+	}
+
+	/**
+	 * An owner matching an autocomplete prefix.
+	 *
+	 * @param id the owner id
+	 * @param firstName the first name
+	 * @param lastName the last name
+	 */
+	public record Match(int id, String firstName, String lastName) {
+
+		static final Comparator<Match> ORDER = Comparator.comparing(Match::key).thenComparingInt(Match::id);
+
+		String key() {
+			return OwnerNameIndex.key(this.lastName) + " " + OwnerNameIndex.key(this.firstName);
+		}
+
+		String overlayKey() {
+			return key() + '\0' + String.format("%010d", this.id);
+		}
+
+	}
+
+	/**
+	 * A sorted array of owners, read without locking, and the overlay of owners saved
+	 * since it was built. Entries of the array whose owner is in the overlay are stale,
+	 * and so are entries of the overlay that are no longer the latest of their owner.
+	 */
+	private static class Index {
+
+		private final Match[] sorted;
+
+		private final String[] keys;
+
+		private final BitSet sortedIds = new BitSet();
+
+		private final ConcurrentSkipListMap<String, Match> overlay = new ConcurrentSkipListMap<>();
+
+		private final Map<Integer, String> overlayKeys = new ConcurrentHashMap<>();
+
+		private volatile int stale;
+
+		Index(Match[] sorted) {
+			this.sorted = sorted;
+			this.keys = new String[sorted.length];
+			for (int i = 0; i < sorted.length; i++) {
+				this.keys[i] = sorted[i].key();
+				this.sortedIds.set(sorted[i].id());
+			}
+		}
+
+		int size() {
+			return this.sorted.length - this.stale + this.overlayKeys.size();
+		}
+
+		List<Match> find(String key, int limit) {
+			List<Match> matches = new ArrayList<>(Math.min(limit, 64));
+			int i = skipStale(lowerBound(key));
+			Iterator<Map.Entry<String, Match>> overlaid = this.overlay.tailMap(key).entrySet().iterator();
+			Match next = nextOverlaid(overlaid);
+			while (matches.size() < limit) {
+				Match fromSorted = (i < this.sorted.length && this.keys[i].startsWith(key)) ? this.sorted[i] : null;
+				Match fromOverlay = (next != null && next.key().startsWith(key)) ? next : null;
+				if (fromSorted == null && fromOverlay == null) {
+					break;
+				}
+				if (fromOverlay == null || (fromSorted != null && Match.ORDER.compare(fromSorted, fromOverlay) < 0)) {
+					matches.add(fromSorted);
+					i = skipStale(i + 1);
+				}
+				else {
+					matches.add(fromOverlay);
+					next = nextOverlaid(overlaid);
+				}
+			}
+			return matches;
+		}
+
+		boolean contains(Match match) {
+			String overlayKey = this.overlayKeys.get(match.id());
+			if (overlayKey != null) {
+				return overlayKey.equals(match.overlayKey());
+			}
+			for (int i = lowerBound(match.key()); i < this.sorted.length && this.keys[i].equals(match.key()); i++) {
+				if (this.sorted[i].equals(match)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Add or replace an owner; callers must hold the index lock. The new entry is
+		 * added before the old one is retired, so that a concurrent lookup sees either.
+		 */
+		void put(Match match) {
+			String overlayKey = match.overlayKey();
+			this.overlay.put(overlayKey, match);
+			String previous = this.overlayKeys.put(match.id(), overlayKey);
+			if (previous == null && this.sortedIds.get(match.id())) {
+				this.stale++;
+			}
+			else if (previous != null && !previous.equals(overlayKey)) {
+				this.overlay.remove(previous);
+			}
+		}
+
+		Index compact() {
+			List<Match> merged = new ArrayList<>(size());
+			for (Match match : this.sorted) {
+				if (!this.overlayKeys.containsKey(match.id())) {
+					merged.add(match);
+				}
+			}
+			merged.addAll(this.overlay.values());
+			Match[] sorted = merged.toArray(new Match[0]);
+			Arrays.parallelSort(sorted, Match.ORDER);
+			return new Index(sorted);
+		}
+
+		private int lowerBound(String key) {
+			int low = 0;
+			int high = this.keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.keys[mid].compareTo(key) < 0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private int skipStale(int i) {
+			while (i < this.sorted.length && this.overlayKeys.containsKey(this.sorted[i].id())) {
+				i++;
+			}
+			return i;
+		}
+
+		private Match nextOverlaid(Iterator<Map.Entry<String, Match>> overlaid) {
+			while (overlaid.hasNext()) {
+				Map.Entry<String, Match> entry = overlaid.next();
+				if (entry.getKey().equals(this.overlayKeys.get(entry.getValue().id()))) {
+					return entry.getValue();
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
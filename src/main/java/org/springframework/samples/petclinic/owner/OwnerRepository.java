@@ -15,13 +15,20 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.system.SingleFlight;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -37,6 +44,15 @@ import org.springframework.transaction.annotation.Transactional;
  */
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
+	/**
+	 * Select clause of the {@link OwnerSummary} queries. The pet names are aggregated in
+	 * a correlated subquery rather than by grouping a join, so that the database only
+	 * aggregates the owners on the requested page.
+	 */
+	String SUMMARY = "new org.springframework.samples.petclinic.owner.OwnerSummary(owner.id, owner.firstName, "
+			+ "owner.lastName, owner.address, owner.city, owner.telephone, "
+			+ "(SELECT listagg(pet.name, ', ') WITHIN GROUP (ORDER BY pet.name) FROM owner.pets pet))";
+
 	/**
 	 * Retrieve all {@link PetType}s from the data store.
 	 * @return a Collection of {@link PetType}s.
@@ -57,15 +73,150 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 	@Transactional(readOnly = true)
 	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
 
+	/**
+	 * Retrieve the next {@link Owner}s whose last name <i>starts</i> with the given name,
+	 * ordered by last name and id and positioned strictly after the given cursor. The
+	 * cursor seeks through the (last_name, id) index, so a deep page costs the same as
+	 * the first one, and no count query is issued.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name of the last owner of the previous slice, or an empty
+	 * String to start from the beginning
+	 * @param afterId id of the last owner of the previous slice, or 0 to start from the
+	 * beginning
+	 * @param pageable the size of the slice, must not carry a sort
+	 * @return a Slice of matching {@link Owner}s
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.lastName LIKE :lastName% AND owner.lastName >= :afterLastName "
+			+ "AND (owner.lastName > :afterLastName OR owner.id > :afterId) ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	Slice<Owner> findByLastNameAfter(@Param("lastName") String lastName, @Param("afterLastName") String afterLastName,
+			@Param("afterId") int afterId, Pageable pageable);
+
+	/**
+	 * Retrieve an {@link OwnerSummary} of the {@link Owner}s whose last name
+	 * <i>starts</i> with the given name, in one query that aggregates the pet names.
+	 * @param lastName Value to search for
+	 * @param pageable the page to return, must not carry a sort
+	 * @return a Page of matching {@link OwnerSummary}s
+	 */
+	@Query(value = "SELECT " + SUMMARY + " FROM Owner owner WHERE owner.lastName LIKE :lastName%",
+			countQuery = "SELECT COUNT(owner) FROM Owner owner WHERE owner.lastName LIKE :lastName%")
+	@Transactional(readOnly = true)
+	@SingleFlight
+	Page<OwnerSummary> findSummariesByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve an {@link OwnerSummary} of the next {@link Owner}s whose last name
+	 * <i>starts</i> with the given name, like {@link #findByLastNameAfter}.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name of the last owner of the previous slice, or an empty
+	 * String to start from the beginning
+	 * @param afterId id of the last owner of the previous slice, or 0 to start from the
+	 * beginning
+	 * @param pageable the size of the slice, must not carry a sort
+	 * @return a Slice of matching {@link OwnerSummary}s
+	 */
+	@Query("SELECT " + SUMMARY + " FROM Owner owner WHERE owner.lastName LIKE :lastName% "
+			+ "AND owner.lastName >= :afterLastName AND (owner.lastName > :afterLastName OR owner.id > :afterId) "
+			+ "ORDER BY owner.lastName, owner.id")
+	@Transactional(readOnly = true)
+	@SingleFlight
+	Slice<OwnerSummary> findSummariesByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") int afterId, Pageable pageable);
+
+	/**
+	 * Retrieve an {@link OwnerSummary} of the {@link Owner}s whose last name has the
+	 * given Soundex key.
+	 * @param key the key, see {@link Phonetics#soundex}
+	 * @param pageable the maximum number of owners to return
+	 * @return the matching {@link OwnerSummary}s
+	 */
+	@Query("SELECT " + SUMMARY + " FROM Owner owner WHERE owner.lastNameSoundex = :key")
+	@Transactional(readOnly = true)
+	@SingleFlight
+	List<OwnerSummary> findSummariesByLastNameSoundex(@Param("key") String key, Pageable pageable);
+
+	/**
+	 * Retrieve an {@link OwnerSummary} of the {@link Owner}s with the given ids, ordered
+	 * by id.
+	 * @param ids the ids of the owners
+	 * @return the matching {@link OwnerSummary}s
+	 */
+	@Query("SELECT " + SUMMARY + " FROM Owner owner WHERE owner.id IN :ids ORDER BY owner.id")
+	@Transactional(readOnly = true)
+	@SingleFlight
+	List<OwnerSummary> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Count the {@link Owner}s whose last name <i>starts</i> with the given name. The
+	 * result is cached for a short while, so it is only an approximate total.
+	 * @param lastName Value to search for
+	 * @return the number of matching {@link Owner}s
+	 */
+	@Query("SELECT COUNT(owner) FROM Owner owner WHERE owner.lastName LIKE :lastName%")
+	@Transactional(readOnly = true)
+	@Cacheable("ownerCounts")
+	@SingleFlight
+	long countByLastName(@Param("lastName") String lastName);
+
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
 	 * @param id the id to search for
-	 * @return the {@link Owner} if found
+	 * @return the {@link Owner} if found, with its pets and their types
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT owner FROM Owner owner WHERE owner.id =:id")
+	@EntityGraph(Owner.PETS)
 	@Transactional(readOnly = true)
 	Owner findById(@Param("id") Integer id);
 
+	/**
+	 * The most ids {@link #findAllById} puts in one query.
+	 */
+	int ID_CHUNK_SIZE = 100;
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids, with their pets and their types, in
+	 * one query.
+	 * @param ids the ids to search for
+	 * @return the {@link Owner}s found, in no particular order
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id IN :ids")
+	@EntityGraph(Owner.PETS)
+	@Transactional(readOnly = true)
+	List<Owner> findByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids, with their pets and their types, in
+	 * one query per {@link #ID_CHUNK_SIZE} ids and one transaction.
+	 * @param ids the ids to search for
+	 * @return the {@link Owner}s found, in no particular order
+	 */
+	@Transactional(readOnly = true)
+	default List<Owner> findAllById(Collection<Integer> ids) {
+		List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids));
+		List<Owner> owners = new ArrayList<>(distinct.size());
+		for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE) {
+			owners.addAll(findByIdIn(distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size()))));
+		}
+		return owners;
+	}
+
+	/**
+	 * Retrieve a version of the whole {@link Owner} aggregate: the sum of the owner's and
+	 * its pets' versions plus the number of pets and visits. Any update, new pet or new
+	 * visit increases it, and as nothing is ever deleted it never repeats, so it can
+	 * serve as an entity tag without loading the aggregate.
+	 * @param id the id to search for
+	 * @return the aggregate version, or {@literal null} if there is no such owner
+	 */
+	@Query("SELECT owner.version"
+			+ " + (SELECT COUNT(pet) + COALESCE(SUM(pet.version), 0) FROM Owner o JOIN o.pets pet WHERE o.id = owner.id)"
+			+ " + (SELECT COUNT(visit) FROM Owner o JOIN o.pets pet JOIN pet.visits visit WHERE o.id = owner.id)"
+			+ " FROM Owner owner WHERE owner.id = :id")
+	@Transactional(readOnly = true)
+	@SingleFlight
+	Long findAggregateVersionById(@Param("id") Integer id);
+
 	/**
 	 * Save an {@link Owner} to the data store, either inserting or updating it.
 	 * @param owner the {@link Owner} to save
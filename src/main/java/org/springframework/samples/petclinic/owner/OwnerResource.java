@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * An {@link Owner} with its pets as the owner API returns it, without their visits.
+ *
+ * @param id the owner id
+ * @param version the owner version
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param address the address
+ * @param city the city
+ * @param telephone the telephone number
+ * @param pets the pets in alphabetical order
+ */
+public record OwnerResource(Integer id, Integer version, String firstName, String lastName, String address, String city,
+		String telephone, List<PetResource> pets) {
+
+	static OwnerResource of(Owner owner) {
+		return new OwnerResource(owner.getId(), owner.getVersion(), owner.getFirstName(), owner.getLastName(),
+				owner.getAddress(), owner.getCity(), owner.getTelephone(),
+				owner.getPets().stream().map(PetResource::of).toList());
+	}
+
+	/**
+	 * A {@link Pet} as the owner API returns it.
+	 *
+	 * @param id the pet id
+	 * @param name the name
+	 * @param birthDate the birth date
+	 * @param type the name of the pet type
+	 */
+	public record PetResource(Integer id, String name, LocalDate birthDate, String type) {
+
+		static PetResource of(Pet pet) {
+			return new PetResource(pet.getId(), pet.getName(), pet.getBirthDate(),
+					pet.getType() != null ? pet.getType().getName() : null);
+		}
+
+	}
+
+}
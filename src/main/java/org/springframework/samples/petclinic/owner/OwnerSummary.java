@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * The columns of an {@link Owner} that the owner search list shows, with the names of its
+ * pets joined in one String, so that a search needs neither the pets nor their visits.
+ *
+ * @param id the owner id
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param address the address
+ * @param city the city
+ * @param telephone the telephone number
+ * @param petNames the pet names in alphabetical order separated by commas, or
+ * {@code null} if the owner has no pets
+ */
+public record OwnerSummary(Integer id, String firstName, String lastName, String address, String city, String telephone,
+		String petNames) {
+
+}
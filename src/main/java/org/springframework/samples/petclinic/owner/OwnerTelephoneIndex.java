@@ -0,0 +1,294 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory index from telephone number to owner ids, for identifying callers. Numbers
+ * are normalized to their digits and packed into a {@code long}, and the index is an
+ * open-addressing hash table of such keys and owner ids, so a lookup is a few array
+ * reads. Several owners may share a number. Lookups do not block unless an owner is being
+ * saved at the same time. Owners saved while the index is being rebuilt are applied again
+ * to the rebuilt table, since the query may or may not have seen them.
+ */
+@Component
+public class OwnerTelephoneIndex implements MeterBinder {
+
+	private static final Log logger = LogFactory.getLog(OwnerTelephoneIndex.class);
+
+	private static final int MAX_DIGITS = 10;
+
+	private static final long DIGITS_MODULUS = 10_000_000_000L;
+
+	private static final long LENGTH_FACTOR = 100_000_000_000L;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final StampedLock lock = new StampedLock();
+
+	private volatile Table table = new Table(16);
+
+	private int size;
+
+	private long[] keysById = new long[0];
+
+	private Map<Integer, Long> savedDuringReload;
+
+	public OwnerTelephoneIndex(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+	}
+
+	/**
+	 * Return the ids of the owners with the given telephone number, in ascending order.
+	 * Everything but the digits is ignored, and so are leading digits beyond ten, such as
+	 * a country code.
+	 * @param telephone the number as dialled or displayed
+	 * @return the owner ids, empty if there are none
+	 */
+	public int[] findOwnerIds(String telephone) {
+		long key = key(telephone);
+		if (key == 0) {
+			return new int[0];
+		}
+		long stamp = this.lock.tryOptimisticRead();
+		int[] found = find(this.table, key);
+		if (!this.lock.validate(stamp)) {
+			stamp = this.lock.readLock();
+			try {
+				found = find(this.table, key);
+			}
+			finally {
+				this.lock.unlockRead(stamp);
+			}
+		}
+		Arrays.sort(found);
+		return found;
+	}
+
+	/**
+	 * Rebuild the index from the data store once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void reload() {
+		long start = System.currentTimeMillis();
+		long stamp = this.lock.writeLock();
+		try {
+			this.savedDuringReload = new LinkedHashMap<>();
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+		List<long[]> owners = this.jdbcTemplate.query("SELECT id, telephone FROM owners WHERE telephone IS NOT NULL",
+				(rs, row) -> new long[] { rs.getInt(1), key(rs.getString(2)) });
+		stamp = this.lock.writeLock();
+		try {
+			int capacity = Integer.highestOneBit(Math.max(16, owners.size() * 2 - 1)) << 1;
+			this.table = new Table(capacity);
+			this.size = 0;
+			this.keysById = new long[0];
+			for (long[] owner : owners) {
+				put((int) owner[0], owner[1]);
+			}
+			this.savedDuringReload.forEach(this::put);
+			this.savedDuringReload = null;
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+		logger.info(String.format("Indexed %d owner telephone numbers in %d ms", owners.size(),
+				System.currentTimeMillis() - start));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void ownerSaved(OwnerSavedEvent event) {
+		int id = event.owner().getId();
+		long key = key(event.owner().getTelephone());
+		long stamp = this.lock.writeLock();
+		try {
+			put(id, key);
+			if (this.savedDuringReload != null) {
+				this.savedDuringReload.put(id, key);
+			}
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("petclinic.owners.telephone.index.size", this, (index) -> index.size)
+			.description("Number of owner telephone numbers held by the lookup index")
+			.register(registry);
+	}
+
+	/**
+	 * Return the digits of a telephone number packed with their count, so that leading
+	 * zeros are kept, or 0 if it has no digits.
+	 */
+	static long key(String telephone) {
+		if (telephone == null) {
+			return 0;
+		}
+		long digits = 0;
+		int length = 0;
+		for (int i = 0; i < telephone.length(); i++) {
+			char c = telephone.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits = (digits * 10 + (c - '0')) % DIGITS_MODULUS;
+				length++;
+			}
+		}
+		return (length == 0) ? 0 : Math.min(length, MAX_DIGITS) * LENGTH_FACTOR + digits;
+	}
+
+	/**
+	 * Scan the probe sequence of a key. This may run against a table that is being
+	 * written to, so it only relies on the keys and ids of a table having the same
+	 * length, and the caller discards the result if the read was not valid.
+	 */
+	private static int[] find(Table table, long key) {
+		long[] keys = table.keys();
+		int[] ids = table.ids();
+		int[] found = new int[0];
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask), probes = 0; keys[i] != 0 && probes < keys.length; i = (i + 1) & mask, probes++) {
+			if (keys[i] == key) {
+				found = Arrays.copyOf(found, found.length + 1);
+				found[found.length - 1] = ids[i];
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Index the owner with the given id under the given key, replacing the key it was
+	 * indexed under before; callers must hold the write lock.
+	 */
+	private void put(int id, long key) {
+		long previous = (id < this.keysById.length) ? this.keysById[id] : 0;
+		if (previous == key) {
+			return;
+		}
+		if (previous != 0) {
+			remove(id, previous);
+		}
+		if (key != 0) {
+			if ((this.size + 1) * 2 > this.table.keys().length) {
+				resize(this.table.keys().length * 2);
+			}
+			long[] keys = this.table.keys();
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (keys[i] != 0) {
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			this.table.ids()[i] = id;
+			this.size++;
+		}
+		if (id >= this.keysById.length) {
+			this.keysById = Arrays.copyOf(this.keysById, Math.max(id + 1, this.keysById.length * 3 / 2));
+		}
+		this.keysById[id] = key;
+	}
+
+	/**
+	 * Remove an entry, moving later entries of its probe sequence back into the gap so
+	 * that lookups still find them.
+	 */
+	private void remove(int id, long key) {
+		long[] keys = this.table.keys();
+		int[] ids = this.table.ids();
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (keys[i] != 0 && !(keys[i] == key && ids[i] == id)) {
+			i = (i + 1) & mask;
+		}
+		if (keys[i] == 0) {
+			return;
+		}
+		this.size--;
+		int gap = i;
+		for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+			int home = slot(keys[j], mask);
+			// move the entry if its home slot is not cyclically between the gap and it
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				ids[gap] = ids[j];
+				gap = j;
+			}
+		}
+		keys[gap] = 0;
+		ids[gap] = 0;
+	}
+
+	private void resize(int capacity) {
+		Table old = this.table;
+		Table resized = new Table(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < old.keys().length; i++) {
+			if (old.keys()[i] != 0) {
+				int j = slot(old.keys()[i], mask);
+				while (resized.keys()[j] != 0) {
+					j = (j + 1) & mask;
+				}
+				resized.keys()[j] = old.keys()[i];
+				resized.ids()[j] = old.ids()[i];
+			}
+		}
+		this.table = resized;
+	}
+
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * The open-addressing table: keys, 0 for a free slot, and the owner id in the same
+	 * slot. Both arrays always have the same power of two length, so that a reader
+	 * holding a table can index both whatever its writers do.
+	 */
+	private record Table(long[] keys, int[] ids) {
+
+		Table(int capacity) {
+			this(new long[capacity], new int[capacity]);
+		}
+
+	}
+
+}
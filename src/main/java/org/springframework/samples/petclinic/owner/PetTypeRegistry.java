@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * In-memory registry of all {@link PetType}s, indexed by name and by id. The types are
+ * loaded once into an immutable snapshot that is shared by all requests, and reloaded on
+ * the next lookup after a type has been inserted, updated or removed.
+ */
+@Component
+public class PetTypeRegistry implements MeterBinder {
+
+	private final OwnerRepository owners;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+	public PetTypeRegistry(OwnerRepository owners) {
+		this.owners = owners;
+	}
+
+	/**
+	 * Return all {@link PetType}s, ordered by name.
+	 * @return an immutable List of {@link PetType}s
+	 */
+	public List<PetType> findAll() {
+		return snapshot().all();
+	}
+
+	/**
+	 * Return the {@link PetType} with the given name.
+	 * @param name the name to look up
+	 * @return the {@link PetType}, or {@literal null} if there is none
+	 */
+	public PetType findByName(String name) {
+		return record(snapshot().byName().get(name));
+	}
+
+	/**
+	 * Return the {@link PetType} with the given id.
+	 * @param id the id to look up
+	 * @return the {@link PetType}, or {@literal null} if there is none
+	 */
+	public PetType findById(Integer id) {
+		return record(snapshot().byId().get(id));
+	}
+
+	/**
+	 * Load the types once the application has started, so that the first request does not
+	 * pay for it and every request executes the same statements.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		snapshot();
+	}
+
+	/**
+	 * Discard the current snapshot so that the next lookup reloads the types from the
+	 * data store.
+	 */
+	public void refresh() {
+		this.generation.incrementAndGet();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("petclinic.pettypes.lookups", this.hits, LongAdder::sum)
+			.tag("result", "hit")
+			.description("Pet type lookups served by the registry")
+			.register(registry);
+		FunctionCounter.builder("petclinic.pettypes.lookups", this.misses, LongAdder::sum)
+			.tag("result", "miss")
+			.description("Pet type lookups served by the registry")
+			.register(registry);
+		Gauge.builder("petclinic.pettypes.size", this, (types) -> types.findAll().size())
+			.description("Number of pet types held by the registry")
+			.register(registry);
+	}
+
+	private PetType record(PetType type) {
+		(type != null ? this.hits : this.misses).increment();
+		return type;
+	}
+
+	/**
+	 * Return the snapshot of the current generation, loading it if needed. A snapshot
+	 * loaded while a refresh happens keeps its older generation, so the next lookup loads
+	 * it again, and it only replaces the snapshot it was loaded to replace.
+	 */
+	private Snapshot snapshot() {
+		Snapshot current = this.snapshot.get();
+		long generation = this.generation.get();
+		if (current != null && current.generation() == generation) {
+			return current;
+		}
+		Snapshot loaded = Snapshot.of(generation, this.owners.findPetTypes());
+		this.snapshot.compareAndSet(current, loaded);
+		return loaded;
+	}
+
+	private record Snapshot(long generation, List<PetType> all, Map<String, PetType> byName,
+			Map<Integer, PetType> byId) {
+
+		static Snapshot of(long generation, List<PetType> types) {
+			return new Snapshot(generation, List.copyOf(types),
+					types.stream().collect(Collectors.toUnmodifiableMap(PetType::getName, Function.identity())),
+					types.stream().collect(Collectors.toUnmodifiableMap(PetType::getId, Function.identity())));
+		}
+
+	}
+
+	/**
+	 * JPA entity listener that refreshes the registry whenever a {@link PetType} changes
+	 * through the persistence context.
+	 */
+	static class ChangeListener {
+
+		private final ObjectProvider<PetTypeRegistry> registry;
+
+		ChangeListener(ObjectProvider<PetTypeRegistry> registry) {
+			this.registry = registry;
+		}
+
+		@PostPersist
+		@PostUpdate
+		@PostRemove
+		void typeChanged(PetType type) {
+			this.registry.ifAvailable(PetTypeRegistry::refresh);
+		}
+
+	}
+
+}
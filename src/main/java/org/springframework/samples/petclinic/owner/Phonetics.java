@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Phonetic keys and edit distances for matching misspelled names.
+ */
+public final class Phonetics {
+
+	// ABCDEFGHIJKLMNOPQRSTUVWXYZ
+	private static final String SOUNDEX = "01230120022455012623010202";
+
+	private Phonetics() {
+	}
+
+	/**
+	 * Return the American Soundex key of a name: its first letter followed by three
+	 * digits standing for the next distinct consonant sounds, such as {@code D120} for
+	 * both "Davis" and "Davies".
+	 * @param name the name, of which only the ASCII letters are considered
+	 * @return the key, or {@literal null} if the name has no letters
+	 */
+	public static String soundex(String name) {
+		if (name == null) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(4);
+		char last = 0;
+		for (int i = 0; i < name.length() && key.length() < 4; i++) {
+			char letter = Character.toUpperCase(name.charAt(i));
+			if (letter < 'A' || letter > 'Z') {
+				continue;
+			}
+			char code = SOUNDEX.charAt(letter - 'A');
+			if (key.isEmpty()) {
+				key.append(letter);
+			}
+			else if (code != '0' && code != last) {
+				key.append(code);
+			}
+			// H and W do not separate consonants with the same code, vowels do
+			if (letter != 'H' && letter != 'W') {
+				last = code;
+			}
+		}
+		if (key.isEmpty()) {
+			return null;
+		}
+		while (key.length() < 4) {
+			key.append('0');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Return the number of single-letter insertions, deletions, substitutions and
+	 * transpositions of adjacent letters that turn one name into the other, ignoring
+	 * case.
+	 * @param a one name
+	 * @param b the other name
+	 * @return the edit distance
+	 */
+	public static int distance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		int[] next = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			current[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			next[0] = i;
+			char ca = Character.toLowerCase(a.charAt(i - 1));
+			for (int j = 1; j <= b.length(); j++) {
+				char cb = Character.toLowerCase(b.charAt(j - 1));
+				int cost = (ca == cb) ? 0 : 1;
+				next[j] = Math.min(Math.min(next[j - 1] + 1, current[j] + 1), current[j - 1] + cost);
+				if (i > 1 && j > 1 && ca == Character.toLowerCase(b.charAt(j - 2))
+						&& Character.toLowerCase(a.charAt(i - 2)) == cb) {
+					next[j] = Math.min(next[j], previous[j - 2] + 1);
+				}
+			}
+			int[] recycled = previous;
+			previous = current;
+			current = next;
+			next = recycled;
+		}
+		return current[b.length()];
+	}
+
+}
@@ -42,6 +42,9 @@ public class Visit extends BaseEntity {
 	@NotBlank
 	private String description;
 
+	@Column(name = "pet_id", insertable = false, updatable = false)
+	private Integer petId;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -65,4 +68,13 @@ public class Visit extends BaseEntity {
 		this.description = description;
 	}
 
+	/**
+	 * Return the id of the visited pet, as stored; the association itself is maintained
+	 * by {@link Pet}.
+	 * @return the id of the visited pet, or {@literal null} if not yet stored
+	 */
+	public Integer getPetId() {
+		return this.petId;
+	}
+
 }
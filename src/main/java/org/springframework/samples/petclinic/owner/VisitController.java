@@ -15,16 +15,23 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.LocalDate;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.samples.petclinic.model.IdTables;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.InitBinder;
-import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.validation.Valid;
 
@@ -38,10 +45,22 @@ import jakarta.validation.Valid;
 @Controller
 class VisitController {
 
-	private final OwnerRepository owners;
+	private static final String VIEWS_VISIT_CREATE_OR_UPDATE_FORM = "pets/createOrUpdateVisitForm";
 
-	public VisitController(OwnerRepository owners) {
-		this.owners = owners;
+	private final VisitRepository visits;
+
+	private final OwnerLoader loader;
+
+	private final ApplicationEventPublisher events;
+
+	private final IdTables idTables;
+
+	public VisitController(VisitRepository visits, OwnerLoader loader, ApplicationEventPublisher events,
+			IdTables idTables) {
+		this.visits = visits;
+		this.loader = loader;
+		this.events = events;
+		this.idTables = idTables;
 	}
 
 	@InitBinder
@@ -50,45 +69,80 @@ class VisitController {
 	}
 
 	/**
-	 * Called before each and every @RequestMapping annotated method. 2 goals: - Make sure
-	 * we always have fresh data - Since we do not use the session scope, make sure that
-	 * Pet object always has an id (Even though id is not part of the form fields)
-	 * @param petId
-	 * @return Pet
+	 * Put the owner, the pet and its most recent visits shown around the visit form into
+	 * the model. Only the form pages need them: a valid submission is appended without
+	 * loading any of them.
+	 * @param ownerId the ID of the owner of the pet
+	 * @param petId the ID of the pet to visit
+	 * @param model the model to populate
 	 */
-	@ModelAttribute("visit")
-	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
-			Map<String, Object> model) {
-		Owner owner = this.owners.findById(ownerId);
+	private void loadPet(int ownerId, int petId, Map<String, Object> model) {
+		Owner owner = this.loader.findById(ownerId);
+		if (owner == null) {
+			throw new IllegalArgumentException("Owner ID not found: " + ownerId);
+		}
 
 		Pet pet = owner.getPet(petId);
+		if (pet == null) {
+			throw new IllegalArgumentException("Pet ID not found: " + petId);
+		}
 		model.put("pet", pet);
 		model.put("owner", owner);
-
-		Visit visit = new Visit();
-		pet.addVisit(visit);
-		return visit;
+		model.put("recentVisits", this.visits.findByPetId(petId, PageRequest.ofSize(5)).getContent());
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
-	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
-		return "pets/createOrUpdateVisitForm";
+	public String initNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			Map<String, Object> model) {
+		loadPet(ownerId, petId, model);
+		model.put("visit", new Visit());
+		return VIEWS_VISIT_CREATE_OR_UPDATE_FORM;
 	}
 
-	// Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is
-	// called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result) {
+	public String processNewVisitForm(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@Valid Visit visit, BindingResult result, Map<String, Object> model) {
 		if (result.hasErrors()) {
-			return "pets/createOrUpdateVisitForm";
+			loadPet(ownerId, petId, model);
+			return VIEWS_VISIT_CREATE_OR_UPDATE_FORM;
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		int added = (this.idTables.isEnabled()
+				? this.visits.addVisit(this.idTables.reserve("visits", 1), ownerId, petId, visit.getDate(),
+						visit.getDescription())
+				: this.visits.addVisit(ownerId, petId, visit.getDate(), visit.getDescription()));
+		if (added == 0) {
+			throw new IllegalArgumentException("Pet ID not found: " + petId);
+		}
+		this.events.publishEvent(new VisitAddedEvent(ownerId, petId));
 		return "redirect:/owners/{ownerId}";
 	}
 
+	/**
+	 * Page through the visit history of a pet, newest first. Without a position the first
+	 * page is shown; each page links to the next older one by the (date, id) of its last
+	 * visit.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showVisitHistory(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate beforeDate,
+			@RequestParam(required = false) Integer beforeId, Map<String, Object> model) {
+		Owner owner = this.loader.findById(ownerId);
+		if (owner == null || owner.getPet(petId) == null) {
+			throw new IllegalArgumentException("Pet ID not found: " + petId);
+		}
+
+		int pageSize = 20;
+		Pageable pageable = PageRequest.ofSize(pageSize);
+		Slice<Visit> history = (beforeDate == null || beforeId == null) ? this.visits.findByPetId(petId, pageable)
+				: this.visits.findByPetIdBefore(petId, beforeDate, beforeId, pageable);
+		model.put("owner", owner);
+		model.put("pet", owner.getPet(petId));
+		model.put("visits", history.getContent());
+		if (history.hasNext()) {
+			model.put("nextVisit", history.getContent().get(history.getNumberOfElements() - 1));
+		}
+		return "pets/visitHistory";
+	}
+
 }
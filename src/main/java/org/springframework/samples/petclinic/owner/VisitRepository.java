@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for <code>Visit</code> domain objects. Visits are appended directly
+ * rather than through their {@link Owner} aggregate, so that adding a visit costs the
+ * same no matter how long the pet's history is.
+ */
+public interface VisitRepository extends Repository<Visit, Integer> {
+
+	/**
+	 * Retrieve the most recent {@link Visit}s of a pet, newest first.
+	 * @param petId the id of the pet
+	 * @param pageable the size of the slice, must not carry a sort
+	 * @return a Slice of {@link Visit}s
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId ORDER BY visit.date DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	Slice<Visit> findByPetId(@Param("petId") Integer petId, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link Visit}s of a pet that are older than the given (date, id)
+	 * position, newest first. The position seeks through the (pet_id, visit_date, id)
+	 * index, so paging through a long history costs the same on every page.
+	 * @param petId the id of the pet
+	 * @param beforeDate date of the last visit of the previous slice
+	 * @param beforeId id of the last visit of the previous slice
+	 * @param pageable the size of the slice, must not carry a sort
+	 * @return a Slice of {@link Visit}s
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId AND visit.date <= :beforeDate "
+			+ "AND (visit.date < :beforeDate OR visit.id < :beforeId) ORDER BY visit.date DESC, visit.id DESC")
+	@Transactional(readOnly = true)
+	Slice<Visit> findByPetIdBefore(@Param("petId") Integer petId, @Param("beforeDate") LocalDate beforeDate,
+			@Param("beforeId") int beforeId, Pageable pageable);
+
+	/**
+	 * Append a {@link Visit} to the given pet with a single statement, provided the pet
+	 * belongs to the given owner. Neither the owner nor the pet's other visits are
+	 * loaded.
+	 * @param ownerId the id of the owner of the pet
+	 * @param petId the id of the pet that has been visited
+	 * @param date the date of the visit
+	 * @param description the description of the visit
+	 * @return 1 if the visit has been added, 0 if the owner has no such pet
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO visits (pet_id, visit_date, description) "
+			+ "SELECT id, :date, :description FROM pets WHERE id = :petId AND owner_id = :ownerId", nativeQuery = true)
+	@Transactional
+	int addVisit(@Param("ownerId") int ownerId, @Param("petId") int petId, @Param("date") LocalDate date,
+			@Param("description") String description);
+
+	/**
+	 * Append a {@link Visit} with the given id, for databases where ids come from
+	 * {@link org.springframework.samples.petclinic.model.IdTables}.
+	 * @param id the id of the new visit
+	 * @see #addVisit(int, int, LocalDate, String)
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO visits (id, pet_id, visit_date, description) "
+			+ "SELECT :id, id, :date, :description FROM pets WHERE id = :petId AND owner_id = :ownerId",
+			nativeQuery = true)
+	@Transactional
+	int addVisit(@Param("id") int id, @Param("ownerId") int ownerId, @Param("petId") int petId,
+			@Param("date") LocalDate date, @Param("description") String description);
+
+}
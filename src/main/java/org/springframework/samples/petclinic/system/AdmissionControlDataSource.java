@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} that limits how many threads may hold a connection at once. Threads
+ * beyond the limit wait in arrival order for a permit, which is returned when the
+ * connection is closed, and fail after the given timeout. The limit is normally the size
+ * of the underlying pool, so that the pool itself never has to queue callers.
+ */
+class AdmissionControlDataSource extends DelegatingDataSource {
+
+	private final Semaphore permits;
+
+	private final Duration timeout;
+
+	AdmissionControlDataSource(DataSource targetDataSource, int permits, Duration timeout) {
+		super(targetDataSource);
+		this.permits = new Semaphore(permits, true);
+		this.timeout = timeout;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return admitted(super.getConnection());
+		}
+		catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw ex;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return admitted(super.getConnection(username, password));
+		}
+		catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw ex;
+		}
+	}
+
+	private void acquire() throws SQLException {
+		try {
+			if (!this.permits.tryAcquire(this.timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException(
+						"Connection not available, request timed out after " + this.timeout.toMillis() + "ms");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a connection", ex);
+		}
+	}
+
+	private Connection admitted(Connection target) {
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, new AdmittedConnection(target));
+	}
+
+	/**
+	 * Returns the permit when the connection is closed.
+	 */
+	private class AdmittedConnection implements InvocationHandler {
+
+		private final Connection target;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		AdmittedConnection(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "getTargetConnection":
+					return this.target;
+				case "close":
+					try {
+						this.target.close();
+					}
+					finally {
+						if (this.released.compareAndSet(false, true)) {
+							AdmissionControlDataSource.this.permits.release();
+						}
+					}
+					return null;
+				default:
+					try {
+						return method.invoke(this.target, args);
+					}
+					catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+			}
+		}
+
+	}
+
+}
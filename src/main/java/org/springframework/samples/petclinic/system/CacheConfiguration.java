@@ -13,41 +13,136 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.springframework.samples.petclinic.system;
 
-import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
-import javax.cache.configuration.MutableConfiguration;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
- * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * Cache configuration for Caffeine. Every cache is bounded in size and expires its
+ * entries; the defaults below can be overridden per cache with
+ * {@code petclinic.cache.<name>.maximum-size}, {@code expire-after-write} and
+ * {@code refresh-after-write}, the name in kebab case, and for caches created on demand
+ * with {@code petclinic.cache.default.*}. A cache with a refresh period needs a
+ * {@link CacheEntryLoader}, which also warms it up at startup.
+ * <p>
+ * Statistics are recorded for every cache, and Spring Boot publishes them as the
+ * {@code cache.*} meters; {@link CacheStatisticsEndpoint} shows them together with each
+ * cache's limits.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
 class CacheConfiguration {
 
+	private static final Log logger = LogFactory.getLog(CacheConfiguration.class);
+
+	/**
+	 * The vets are read on every vet page and rarely change, so they are refreshed ahead
+	 * of their expiry; the owner search counts are only meant to be approximate for a
+	 * short while.
+	 */
+	private static final Map<String, Spec> SPECS = Map.of("vets",
+			new Spec(100, Duration.ofHours(1), Duration.ofMinutes(10)), "ownerCounts",
+			new Spec(1000, Duration.ofMinutes(1), null));
+
+	private static final Spec DEFAULT_SPEC = new Spec(1000, Duration.ofHours(1), null);
+
+	@Bean
+	public CacheManagerCustomizer<CaffeineCacheManager> petclinicCaffeineCacheCustomizer(Environment environment,
+			ObjectProvider<CacheEntryLoader> loaders) {
+		Binder binder = Binder.get(environment);
+		return (cm) -> {
+			cm.setCaffeine(DEFAULT_SPEC.bind(binder, "default").builder());
+			SPECS.forEach((name, defaults) -> {
+				Spec spec = defaults.bind(binder, name);
+				if (spec.refreshes()) {
+					// loaders are looked up on first use, as they may depend on the cache
+					// manager being customized here
+					CacheLoader<Object, Object> loader = (key) -> loader(loaders, name)
+						.orElseThrow(() -> new IllegalStateException("No CacheEntryLoader for cache '" + name + "'"))
+						.load(key);
+					cm.registerCustomCache(name, spec.builder().build(loader));
+				}
+				else {
+					cm.registerCustomCache(name, spec.builder().build());
+				}
+			});
+		};
+	}
+
+	/**
+	 * Load the warm-up keys of every {@link CacheEntryLoader} once the application has
+	 * started.
+	 */
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+	public ApplicationListener<ApplicationReadyEvent> petclinicCacheWarmer(CacheManager cacheManager,
+			ObjectProvider<CacheEntryLoader> loaders) {
+		return (event) -> loaders.orderedStream().forEach((loader) -> {
+			long start = System.currentTimeMillis();
+			Cache cache = cacheManager.getCache(loader.getCacheName());
+			for (Object key : loader.getWarmUpKeys()) {
+				cache.get(key, () -> loader.load(key));
+			}
+			logger.info(String.format("Warmed up cache '%s' with %d entries in %d ms", loader.getCacheName(),
+					loader.getWarmUpKeys().size(), System.currentTimeMillis() - start));
+		});
+	}
+
+	private static Optional<CacheEntryLoader> loader(ObjectProvider<CacheEntryLoader> loaders, String name) {
+		return loaders.orderedStream().filter((loader) -> loader.getCacheName().equals(name)).findFirst();
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
-	 * <p>
-	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * The limits of a cache.
+	 *
+	 * @param maximumSize the maximum number of entries
+	 * @param expireAfterWrite how long an entry is kept after it was loaded
+	 * @param refreshAfterWrite how long after it was loaded an entry is reloaded in the
+	 * background when it is next read, or {@literal null} for never
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	record Spec(long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite) {
+
+		/**
+		 * Override these limits with the {@code petclinic.cache.<name>.*} properties.
+		 */
+		Spec bind(Binder binder, String name) {
+			String prefix = "petclinic.cache." + name.replaceAll("([a-z])([A-Z])", "$1-$2").toLowerCase() + ".";
+			return new Spec(binder.bind(prefix + "maximum-size", Long.class).orElse(this.maximumSize),
+					binder.bind(prefix + "expire-after-write", Duration.class).orElse(this.expireAfterWrite),
+					binder.bind(prefix + "refresh-after-write", Duration.class).orElse(this.refreshAfterWrite));
+		}
+
+		boolean refreshes() {
+			return this.refreshAfterWrite != null && !this.refreshAfterWrite.isZero();
+		}
+
+		Caffeine<Object, Object> builder() {
+			Caffeine<Object, Object> builder = Caffeine.newBuilder()
+				.maximumSize(this.maximumSize)
+				.expireAfterWrite(this.expireAfterWrite)
+				.recordStats();
+			return refreshes() ? builder.refreshAfterWrite(this.refreshAfterWrite) : builder;
+		}
+
 	}
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loads the entries of one of the caches configured by {@link CacheConfiguration}. A
+ * cache with a {@code refresh-after-write} period reads through its loader on a miss and
+ * reloads entries in the background once that period has passed, serving the previous
+ * value meanwhile; the warm-up keys are loaded when the application has started.
+ * <p>
+ * Loaders must not go through the cache they load, or a refresh would read back the value
+ * it is meant to replace.
+ */
+public interface CacheEntryLoader {
+
+	/**
+	 * The name of the cache whose entries this loader loads.
+	 */
+	String getCacheName();
+
+	/**
+	 * Load the value of the given key.
+	 * @param key the cache key
+	 * @return the value, or {@literal null} to leave a key this loader does not handle to
+	 * the caller
+	 * @throws Exception if the value could not be loaded
+	 */
+	Object load(Object key) throws Exception;
+
+	/**
+	 * The keys to load when the application starts, so that the first requests find them.
+	 */
+	default Collection<?> getWarmUpKeys() {
+		return List.of();
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Actuator endpoint showing, for each Caffeine cache, its limits next to its current size
+ * and statistics, at {@code /actuator/cachestats}. The same statistics are published as
+ * the {@code cache.*} meters.
+ */
+@Component
+@Endpoint(id = "cachestats")
+class CacheStatisticsEndpoint {
+
+	private final CacheManager cacheManager;
+
+	CacheStatisticsEndpoint(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@ReadOperation
+	public Map<String, CacheStatistics> caches() {
+		Map<String, CacheStatistics> caches = new TreeMap<>();
+		for (String name : this.cacheManager.getCacheNames()) {
+			if (this.cacheManager.getCache(name) instanceof CaffeineCache cache) {
+				caches.put(name, CacheStatistics.of(cache.getNativeCache()));
+			}
+		}
+		return caches;
+	}
+
+	/**
+	 * The limits and statistics of a cache; limits it does not have are {@literal null}.
+	 */
+	record CacheStatistics(long size, Long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+			long hits, long misses, double hitRate, long evictions, long loads, long loadFailures,
+			double averageLoadMillis) {
+
+		static CacheStatistics of(Cache<Object, Object> cache) {
+			Policy<Object, Object> policy = cache.policy();
+			CacheStats stats = cache.stats();
+			return new CacheStatistics(cache.estimatedSize(),
+					policy.eviction().map(Policy.Eviction::getMaximum).orElse(null),
+					policy.expireAfterWrite().map(Policy.FixedExpiration::getExpiresAfter).orElse(null),
+					policy.refreshAfterWrite().map(Policy.FixedRefresh::getRefreshesAfter).orElse(null),
+					stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(), stats.loadCount(),
+					stats.loadFailureCount(), stats.averageLoadPenalty() / 1_000_000.0);
+		}
+
+	}
+
+}
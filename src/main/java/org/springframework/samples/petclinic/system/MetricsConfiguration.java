@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics for the request hot path beyond what Spring Boot records by default: the
+ * controller method that handled each request, tagged as {@code handler} on
+ * {@code http.server.requests}, and the SQL statements each request executed. Percentile
+ * histograms for the request and repository timers are enabled in
+ * {@code application.properties}.
+ */
+@Configuration(proxyBeanMethods = false)
+class MetricsConfiguration {
+
+	@Bean
+	public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+					return new QueryCountingDataSource(dataSource);
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	public QueryStatsFilter queryStatsFilter(MeterRegistry registry,
+			@Value("${petclinic.sql.query-budget:20}") int queryBudget) {
+		return new QueryStatsFilter(registry, queryBudget);
+	}
+
+	@Bean
+	public DefaultServerRequestObservationConvention handlerObservationConvention() {
+		return new DefaultServerRequestObservationConvention() {
+
+			@Override
+			public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+				return super.getLowCardinalityKeyValues(context).and("handler", handler(context));
+			}
+
+		};
+	}
+
+	private static String handler(ServerRequestObservationContext context) {
+		Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+		if (handler instanceof HandlerMethod method) {
+			return method.getBeanType().getSimpleName() + "#" + method.getMethod().getName();
+		}
+		return "none";
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Supports running with {@code spring.jpa.open-in-view=false}, so that a page request
+ * holds a connection only for the transactions of its repository calls and not while its
+ * view renders. The handlers load everything their views show up front, through the
+ * {@code Owner.pets} and {@code Vet.specialties} entity graphs, the visit repository and
+ * summary projections.
+ * <p>
+ * Form submissions keep one entity manager open for the whole request instead: they load
+ * the owner aggregate in model attribute methods and save it afterwards, which would
+ * otherwise merge a detached copy and select it again. They render nothing but a
+ * redirect, unless the form is invalid.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.jpa.open-in-view", havingValue = "false")
+class OpenInViewConfiguration {
+
+	@Bean
+	public WebMvcConfigurer openEntityManagerInSubmissionConfigurer(EntityManagerFactory entityManagerFactory) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				OpenEntityManagerInSubmissionInterceptor interceptor = new OpenEntityManagerInSubmissionInterceptor();
+				interceptor.setEntityManagerFactory(entityManagerFactory);
+				registry.addWebRequestInterceptor(interceptor);
+			}
+
+		};
+	}
+
+	/**
+	 * Opens an entity manager for the requests that are not safe, that is that submit a
+	 * form, only.
+	 */
+	private static class OpenEntityManagerInSubmissionInterceptor extends OpenEntityManagerInViewInterceptor {
+
+		@Override
+		public void preHandle(WebRequest request) {
+			if (isSubmission(request)) {
+				super.preHandle(request);
+			}
+		}
+
+		@Override
+		public void afterCompletion(WebRequest request, Exception ex) {
+			if (isSubmission(request)) {
+				super.afterCompletion(request, ex);
+			}
+		}
+
+		@Override
+		public void afterConcurrentHandlingStarted(WebRequest request) {
+			if (isSubmission(request)) {
+				super.afterConcurrentHandlingStarted(request);
+			}
+		}
+
+		private static boolean isSubmission(WebRequest request) {
+			if (request instanceof ServletWebRequest servletRequest) {
+				HttpMethod method = servletRequest.getHttpMethod();
+				return !(method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS);
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * {@link DataSource} that counts and times every statement execution, and times how long
+ * every connection is held until it is closed, and reports them to {@link QueryStats}.
+ */
+class QueryCountingDataSource extends DelegatingDataSource {
+
+	QueryCountingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(super.getConnection(username, password));
+	}
+
+	private static Connection counting(Connection target) {
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, new CountingConnection(target));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+	/**
+	 * Hands out statements that report their executions, and reports how long it was held
+	 * when it is closed.
+	 */
+	private static class CountingConnection implements InvocationHandler {
+
+		private final Connection target;
+
+		private final long obtained = System.nanoTime();
+
+		private boolean closed;
+
+		CountingConnection(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "getTargetConnection":
+					return this.target;
+				case "close":
+					if (!this.closed) {
+						this.closed = true;
+						QueryStats.recordConnection(System.nanoTime() - this.obtained);
+					}
+					return QueryCountingDataSource.invoke(this.target, method, args);
+				case "createStatement":
+					return counting(Statement.class, QueryCountingDataSource.invoke(this.target, method, args), null);
+				case "prepareStatement":
+					return counting(PreparedStatement.class, QueryCountingDataSource.invoke(this.target, method, args),
+							(String) args[0]);
+				case "prepareCall":
+					return counting(CallableStatement.class, QueryCountingDataSource.invoke(this.target, method, args),
+							(String) args[0]);
+				default:
+					return QueryCountingDataSource.invoke(this.target, method, args);
+			}
+		}
+
+		private Object counting(Class<? extends Statement> type, Object statement, String sql) {
+			return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+					new CountingStatement(statement, sql));
+		}
+
+	}
+
+	/**
+	 * Counts and times the {@code execute*} methods of a statement. A batch counts as one
+	 * statement.
+	 */
+	private static class CountingStatement implements InvocationHandler {
+
+		private final Object target;
+
+		private final String sql;
+
+		CountingStatement(Object target, String sql) {
+			this.target = target;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("equals")) {
+				return proxy == args[0];
+			}
+			if (method.getName().equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+			if (!method.getName().startsWith("execute")) {
+				return QueryCountingDataSource.invoke(this.target, method, args);
+			}
+			String sql = this.sql;
+			if (args != null && args.length > 0 && args[0] instanceof String executed) {
+				sql = executed;
+			}
+			QueryStats.count(sql);
+			long start = System.nanoTime();
+			try {
+				return QueryCountingDataSource.invoke(this.target, method, args);
+			}
+			finally {
+				QueryStats.record(System.nanoTime() - start);
+			}
+		}
+
+	}
+
+}
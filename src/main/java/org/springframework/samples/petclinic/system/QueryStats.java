@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.Locale;
+
+/**
+ * The SQL statements executed by the current request: how many of each kind there were
+ * and how long the JDBC calls took, and how long the request held connections. Collection
+ * is started and ended per request by {@link QueryStatsFilter} and fed by
+ * {@link QueryCountingDataSource}; statements executed outside a request are not counted.
+ */
+final class QueryStats {
+
+	private static final ThreadLocal<QueryStats> current = new ThreadLocal<>();
+
+	private final int[] counts = new int[Kind.values().length];
+
+	private long nanos;
+
+	private long connectionNanos;
+
+	private QueryStats() {
+	}
+
+	/**
+	 * Start collecting statistics for the current thread.
+	 */
+	static QueryStats start() {
+		QueryStats stats = new QueryStats();
+		current.set(stats);
+		return stats;
+	}
+
+	/**
+	 * Stop collecting statistics for the current thread.
+	 */
+	static void end() {
+		current.remove();
+	}
+
+	/**
+	 * Count a statement the current thread is about to execute, if statistics are being
+	 * collected for it.
+	 * @param sql the statement
+	 */
+	static void count(String sql) {
+		QueryStats stats = current.get();
+		if (stats != null) {
+			stats.counts[Kind.of(sql).ordinal()]++;
+		}
+	}
+
+	/**
+	 * Record the time a statement executed by the current thread took, if statistics are
+	 * being collected for it.
+	 * @param nanos the time the statement took
+	 */
+	static void record(long nanos) {
+		QueryStats stats = current.get();
+		if (stats != null) {
+			stats.nanos += nanos;
+		}
+	}
+
+	/**
+	 * Record the time a connection closed by the current thread was held, if statistics
+	 * are being collected for it.
+	 * @param nanos the time between obtaining the connection and closing it
+	 */
+	static void recordConnection(long nanos) {
+		QueryStats stats = current.get();
+		if (stats != null) {
+			stats.connectionNanos += nanos;
+		}
+	}
+
+	int getStatements() {
+		int statements = 0;
+		for (int count : this.counts) {
+			statements += count;
+		}
+		return statements;
+	}
+
+	int getStatements(Kind kind) {
+		return this.counts[kind.ordinal()];
+	}
+
+	long getNanos() {
+		return this.nanos;
+	}
+
+	long getConnectionNanos() {
+		return this.connectionNanos;
+	}
+
+	/**
+	 * The kinds of statements, by leading keyword.
+	 */
+	enum Kind {
+
+		SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+		static Kind of(String sql) {
+			if (sql == null) {
+				return OTHER;
+			}
+			String keyword = sql.stripLeading();
+			if (isSequenceFetch(keyword)) {
+				// an id block for the pooled-ids profile, not data the handler reads
+				return OTHER;
+			}
+			int end = 0;
+			while (end < keyword.length() && Character.isLetter(keyword.charAt(end))) {
+				end++;
+			}
+			return switch (keyword.substring(0, end).toUpperCase(Locale.ROOT)) {
+				case "SELECT", "WITH", "VALUES" -> SELECT;
+				case "INSERT" -> INSERT;
+				case "UPDATE" -> UPDATE;
+				case "DELETE" -> DELETE;
+				default -> OTHER;
+			};
+		}
+
+		private static boolean isSequenceFetch(String sql) {
+			return startsWithIgnoreCase(sql, "select next value for ") || startsWithIgnoreCase(sql, "select nextval(");
+		}
+
+		private static boolean startsWithIgnoreCase(String sql, String prefix) {
+			return sql.regionMatches(true, 0, prefix, 0, prefix.length());
+		}
+
+	}
+
+}
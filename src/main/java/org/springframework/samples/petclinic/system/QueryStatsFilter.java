@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.samples.petclinic.system.QueryStats.Kind;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the number of SQL statements, the JDBC time and the time connections were held
+ * of every request, as {@code petclinic.requests.sql.statements},
+ * {@code petclinic.requests.sql.time} and {@code petclinic.requests.connection.time}
+ * tagged with the method and URI pattern. A request that executes more statements than
+ * {@code petclinic.sql.query-budget} is logged as a suspected N+1 query. The statistics
+ * of a request are also kept in the request attribute named after {@link QueryStats}.
+ */
+class QueryStatsFilter extends OncePerRequestFilter {
+
+	private static final Log logger = LogFactory.getLog(QueryStatsFilter.class);
+
+	private final MeterRegistry registry;
+
+	private final int queryBudget;
+
+	QueryStatsFilter(MeterRegistry registry, int queryBudget) {
+		this.registry = registry;
+		this.queryBudget = queryBudget;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		QueryStats stats = QueryStats.start();
+		request.setAttribute(QueryStats.class.getName(), stats);
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			QueryStats.end();
+			record(request, stats);
+		}
+	}
+
+	private void record(HttpServletRequest request, QueryStats stats) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri = (pattern != null ? pattern.toString() : "UNKNOWN");
+		Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+		DistributionSummary.builder("petclinic.requests.sql.statements")
+			.description("SQL statements executed per request")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(this.registry)
+			.record(stats.getStatements());
+		Timer.builder("petclinic.requests.sql.time")
+			.description("JDBC time per request")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(this.registry)
+			.record(stats.getNanos(), TimeUnit.NANOSECONDS);
+		Timer.builder("petclinic.requests.connection.time")
+			.description("Time connections were held per request")
+			.tags(tags)
+			.publishPercentileHistogram()
+			.register(this.registry)
+			.record(stats.getConnectionNanos(), TimeUnit.NANOSECONDS);
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("%s %s executed %s", request.getMethod(), uri, counts(stats)));
+		}
+		if (stats.getStatements() > this.queryBudget) {
+			logger.warn(String.format("Suspected N+1 query: %s %s executed %d SQL statements in %d ms (budget %d)",
+					request.getMethod(), request.getRequestURI(), stats.getStatements(),
+					TimeUnit.NANOSECONDS.toMillis(stats.getNanos()), this.queryBudget));
+		}
+	}
+
+	private static String counts(QueryStats stats) {
+		return String.format(
+				"%d SELECT, %d INSERT, %d UPDATE, %d DELETE, %d other statements in %d ms, connections held %d ms",
+				stats.getStatements(Kind.SELECT), stats.getStatements(Kind.INSERT), stats.getStatements(Kind.UPDATE),
+				stats.getStatements(Kind.DELETE), stats.getStatements(Kind.OTHER),
+				TimeUnit.NANOSECONDS.toMillis(stats.getNanos()),
+				TimeUnit.NANOSECONDS.toMillis(stats.getConnectionNanos()));
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Pins the reads of a request to the primary once it wrote, and tells
+ * {@link ReadAfterWriteFilter} to pin the client's next requests, so that it sees its own
+ * writes even if the replicas lag behind, for example on the redirect to
+ * {@code /owners/{id}} after saving an owner.
+ */
+public final class ReadAfterWrite {
+
+	private static final ThreadLocal<ReadAfterWrite> current = new ThreadLocal<>();
+
+	private boolean pinned;
+
+	private boolean written;
+
+	private ReadAfterWrite(boolean pinned) {
+		this.pinned = pinned;
+	}
+
+	/**
+	 * Start tracking writes for the current thread.
+	 * @param pinned whether the client wrote recently enough for its reads to go to the
+	 * primary from the start
+	 */
+	static void start(boolean pinned) {
+		current.set(new ReadAfterWrite(pinned));
+	}
+
+	/**
+	 * Stop tracking writes for the current thread.
+	 */
+	static void end() {
+		current.remove();
+	}
+
+	/**
+	 * Return whether reads of the current thread must go to the primary.
+	 */
+	static boolean isPinned() {
+		ReadAfterWrite state = current.get();
+		return (state != null && state.pinned);
+	}
+
+	/**
+	 * Return whether the current thread must see its own writes: its reads are pinned to
+	 * the primary, or it runs in a transaction. Such a thread must neither use data
+	 * shared by other requests nor join a load they started.
+	 */
+	public static boolean mustSeeOwnWrites() {
+		return isPinned() || TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	/**
+	 * Return whether the current thread wrote to the primary since it started tracking.
+	 */
+	static boolean isWritten() {
+		ReadAfterWrite state = current.get();
+		return (state != null && state.written);
+	}
+
+	/**
+	 * Note that the current thread is writing to the primary, pinning its reads to the
+	 * primary for the rest of the request.
+	 */
+	static void written() {
+		ReadAfterWrite state = current.get();
+		if (state != null) {
+			state.written = true;
+			state.pinned = true;
+		}
+	}
+
+}
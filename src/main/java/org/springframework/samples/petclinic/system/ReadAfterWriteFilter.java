@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Tracks the writes of every request for {@link ReadAfterWrite}, and pins the client to
+ * the primary for a while after a request wrote. The pin travels in a cookie holding the
+ * time it expires, added as soon as the request wrote and its response is about to be
+ * committed.
+ */
+class ReadAfterWriteFilter extends OncePerRequestFilter {
+
+	static final String COOKIE_NAME = "PETCLINIC_PRIMARY_UNTIL";
+
+	private final Duration window;
+
+	ReadAfterWriteFilter(Duration window) {
+		this.window = window;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		ReadAfterWrite.start(System.currentTimeMillis() < pinUntil(request));
+		try {
+			PinningResponse pinning = new PinningResponse(response, this.window);
+			filterChain.doFilter(request, pinning);
+			pinning.pinIfWritten();
+		}
+		finally {
+			ReadAfterWrite.end();
+		}
+	}
+
+	private static long pinUntil(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+		if (cookie != null) {
+			try {
+				return Long.parseLong(cookie.getValue());
+			}
+			catch (NumberFormatException ex) {
+				// Not one of ours, ignore it
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds the pin cookie before anything can commit the response: a redirect, an error,
+	 * a flush or the body being written. Writes made once the body is being written can
+	 * no longer pin the client, only the rest of the request.
+	 */
+	private static class PinningResponse extends HttpServletResponseWrapper {
+
+		private final Duration window;
+
+		private boolean pinned;
+
+		PinningResponse(HttpServletResponse response, Duration window) {
+			super(response);
+			this.window = window;
+		}
+
+		void pinIfWritten() {
+			if (!this.pinned && ReadAfterWrite.isWritten() && !isCommitted()) {
+				this.pinned = true;
+				long until = System.currentTimeMillis() + this.window.toMillis();
+				Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge((int) Math.max(1, this.window.toSeconds()));
+				addCookie(cookie);
+			}
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			pinIfWritten();
+			super.sendRedirect(location);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			pinIfWritten();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			pinIfWritten();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			pinIfWritten();
+			super.flushBuffer();
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			pinIfWritten();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			pinIfWritten();
+			return super.getWriter();
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes read-only transactions to the read replicas listed in
+ * {@code petclinic.datasource.replicas.urls}. Every pool, the primary's included, takes
+ * its settings from {@code spring.datasource.hikari} and is named after its role.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("petclinic.datasource.replicas.urls")
+class ReplicaRoutingConfiguration {
+
+	@Bean
+	public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+			ObjectProvider<MeterRegistry> registry, @Value("${petclinic.datasource.replicas.urls}") List<String> urls,
+			@Value("${petclinic.datasource.replicas.selection:round-robin}") ReplicaRoutingDataSource.Selection selection) {
+		Binder binder = Binder.get(environment);
+		HikariDataSource primary = pool(properties, binder, registry, properties.determineUrl(), "primary");
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (String url : urls) {
+			replicas.add(pool(properties, binder, registry, url, "replica-" + (replicas.size() + 1)));
+		}
+		return new ReplicaRoutingDataSource(primary, replicas, selection);
+	}
+
+	private static HikariDataSource pool(DataSourceProperties properties, Binder binder,
+			ObjectProvider<MeterRegistry> registry, String url, String name) {
+		HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		pool.setPoolName(name);
+		registry.ifAvailable((meters) -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meters)));
+		return pool;
+	}
+
+	/**
+	 * Give connections back at the end of each transaction, rather than holding them for
+	 * the whole request, so that a session reading from a replica can still write.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+		return (properties) -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+				PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+	}
+
+	@Bean
+	public ReadAfterWriteFilter readAfterWriteFilter(
+			@Value("${petclinic.datasource.replicas.read-after-write:5s}") Duration window) {
+		return new ReadAfterWriteFilter(window);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * {@link javax.sql.DataSource} that sends read-only transactions to one of a number of
+ * read replicas and everything else to the primary. Connections are only fetched when the
+ * first statement runs, once the transaction manager has marked the transaction as
+ * read-only. Reads are pinned to the primary for a while after the same client wrote, see
+ * {@link ReadAfterWrite}.
+ */
+class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+	private final HikariDataSource primary;
+
+	private final List<HikariDataSource> replicas;
+
+	private final Router router;
+
+	ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection) {
+		this.primary = primary;
+		this.replicas = replicas;
+		this.router = new Router(primary, replicas, selection);
+		this.router.decoratePools((pool) -> pool);
+		setTargetDataSource(this.router);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Route to each pool through the {@link DataSource} the given function wraps it in,
+	 * for example to limit how many threads may use that pool at once.
+	 * @param decorator wraps one pool
+	 */
+	void decoratePools(Function<HikariDataSource, DataSource> decorator) {
+		this.router.decoratePools(decorator);
+	}
+
+	@Override
+	public void close() {
+		List<HikariDataSource> pools = new ArrayList<>(this.replicas);
+		pools.add(this.primary);
+		pools.forEach(HikariDataSource::close);
+	}
+
+	/**
+	 * How a replica is chosen for a read-only transaction.
+	 */
+	enum Selection {
+
+		/**
+		 * Each replica in turn.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * The replica with the fewest connections in use, taking turns between equals.
+		 */
+		LEAST_CONNECTIONS;
+
+		HikariDataSource select(List<HikariDataSource> replicas, int turn) {
+			int start = Math.floorMod(turn, replicas.size());
+			HikariDataSource selected = replicas.get(start);
+			if (this == LEAST_CONNECTIONS) {
+				int fewest = activeConnections(selected);
+				for (int i = 1; i < replicas.size() && fewest > 0; i++) {
+					HikariDataSource replica = replicas.get((start + i) % replicas.size());
+					int active = activeConnections(replica);
+					if (active < fewest) {
+						selected = replica;
+						fewest = active;
+					}
+				}
+			}
+			return selected;
+		}
+
+		private static int activeConnections(HikariDataSource replica) {
+			HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+			return (pool != null ? pool.getActiveConnections() : 0);
+		}
+
+	}
+
+	/**
+	 * Looks up the pool for the current transaction by pool name.
+	 */
+	private static class Router extends AbstractRoutingDataSource {
+
+		private final HikariDataSource primary;
+
+		private final List<HikariDataSource> replicas;
+
+		private final Selection selection;
+
+		private final AtomicInteger turn = new AtomicInteger();
+
+		Router(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection) {
+			this.primary = primary;
+			this.replicas = replicas;
+			this.selection = selection;
+			setLenientFallback(false);
+		}
+
+		void decoratePools(Function<HikariDataSource, DataSource> decorator) {
+			Map<Object, Object> targets = new LinkedHashMap<>();
+			targets.put(this.primary.getPoolName(), decorator.apply(this.primary));
+			this.replicas.forEach((replica) -> targets.put(replica.getPoolName(), decorator.apply(replica)));
+			setTargetDataSources(targets);
+			afterPropertiesSet();
+		}
+
+		@Override
+		protected Object determineCurrentLookupKey() {
+			if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+				if (TransactionSynchronizationManager.isActualTransactionActive()) {
+					ReadAfterWrite.written();
+				}
+				return this.primary.getPoolName();
+			}
+			if (ReadAfterWrite.isPinned()) {
+				return this.primary.getPoolName();
+			}
+			return this.selection.select(this.replicas, this.turn.getAndIncrement()).getPoolName();
+		}
+
+	}
+
+}
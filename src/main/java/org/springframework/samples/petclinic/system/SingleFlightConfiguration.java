@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Applies {@link SingleFlight} to the annotated repository methods, keyed by method and
+ * arguments. The advice runs before the transaction and cache advice, so that waiting
+ * callers neither start a transaction nor hold a connection. Callers whose reads are
+ * pinned to the primary, or that already run in a transaction, must see their own writes
+ * and so never join a call that may have been routed elsewhere.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.singleflight.enabled", matchIfMissing = true)
+class SingleFlightConfiguration {
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static Advisor singleFlightAdvisor(ObjectProvider<MeterRegistry> registry) {
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+				new AnnotationMatchingPointcut(null, SingleFlight.class, true), new SingleFlightInterceptor(registry));
+		advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return advisor;
+	}
+
+	private static class SingleFlightInterceptor implements MethodInterceptor {
+
+		private final ObjectProvider<MeterRegistry> registry;
+
+		private final Map<Method, SingleFlightGroup<List<Object>, Object>> groups = new ConcurrentHashMap<>();
+
+		SingleFlightInterceptor(ObjectProvider<MeterRegistry> registry) {
+			this.registry = registry;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			if (ReadAfterWrite.mustSeeOwnWrites()) {
+				return invocation.proceed();
+			}
+			Method method = invocation.getMethod();
+			SingleFlightGroup<List<Object>, Object> group = this.groups.computeIfAbsent(method,
+					(key) -> new SingleFlightGroup<>(key.getDeclaringClass().getSimpleName() + "." + key.getName(),
+							this.registry.getObject()));
+			return group.<Exception>call(Arrays.asList(invocation.getArguments()), () -> {
+				try {
+					return invocation.proceed();
+				}
+				catch (Exception | Error ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new UndeclaredThrowableException(ex);
+				}
+			});
+		}
+
+	}
+
+}
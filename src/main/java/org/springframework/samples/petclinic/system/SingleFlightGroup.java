@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent calls for the same key into one: the first caller runs the call,
+ * and callers arriving before it completes wait for its outcome. Nothing is kept once the
+ * call completes, so a later caller runs the call again.
+ * <p>
+ * The calls are counted in {@code petclinic.singleflight.calls}, tagged with the name of
+ * the group and whether each call was {@code executed} or {@code coalesced}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public class SingleFlightGroup<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+	private final Counter executed;
+
+	private final Counter coalesced;
+
+	public SingleFlightGroup(String name, MeterRegistry registry) {
+		this.executed = counter(name, "executed", registry);
+		this.coalesced = counter(name, "coalesced", registry);
+	}
+
+	private static Counter counter(String name, String result, MeterRegistry registry) {
+		return Counter.builder("petclinic.singleflight.calls")
+			.description("Calls that were executed, or that shared the result of an identical call in flight")
+			.tags("name", name, "result", result)
+			.register(registry);
+	}
+
+	/**
+	 * Run the given call, unless a call for the same key is in flight, in which case wait
+	 * for that one and return its result.
+	 * @param <E> the type of the checked exception the call may throw
+	 * @param key the key identifying identical calls
+	 * @param call the call to run
+	 * @return the result of the call
+	 * @throws E the exception thrown by the call
+	 */
+	public <E extends Exception> V call(K key, Call<V, E> call) throws E {
+		CompletableFuture<V> mine = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = this.calls.putIfAbsent(key, mine);
+		if (inFlight != null) {
+			this.coalesced.increment();
+			return await(inFlight);
+		}
+		this.executed.increment();
+		try {
+			V result = call.call();
+			mine.complete(result);
+			return result;
+		}
+		catch (Throwable ex) {
+			mine.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.calls.remove(key, mine);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V, E extends Exception> V await(CompletableFuture<V> inFlight) throws E {
+		try {
+			return inFlight.join();
+		}
+		catch (CompletionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof Exception exception) {
+				// the call of the same key threw it, so it is an E or unchecked
+				throw (E) exception;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new UndeclaredThrowableException(cause);
+		}
+	}
+
+	/**
+	 * A call to coalesce.
+	 *
+	 * @param <V> the type of the result
+	 * @param <E> the type of the checked exception the call may throw
+	 */
+	@FunctionalInterface
+	public interface Call<V, E extends Exception> {
+
+		V call() throws E;
+
+	}
+
+}
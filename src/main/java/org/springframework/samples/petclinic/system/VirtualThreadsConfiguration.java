@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Opt-in mode, enabled with {@code petclinic.threads.virtual.enabled=true}, that runs
+ * every request on its own virtual thread instead of Tomcat's bounded worker pool. The
+ * controllers and the blocking repository calls they make then no longer tie up a
+ * platform thread each, and asynchronous requests such as exports use virtual threads
+ * too.
+ * <p>
+ * Requires Java 21. The application is compiled for Java 17, so the executor is looked up
+ * reflectively and startup fails if it is not available.
+ * <p>
+ * With threads no longer limiting concurrency, thousands of requests would wait on the
+ * connection pool at once. Connections are therefore handed out through
+ * {@link AdmissionControlDataSource}, which lets no more threads in than the pool has
+ * connections and queues the rest in arrival order. With read replicas, each pool gets
+ * its own limit, so a busy primary does not hold back reads on the replicas.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.threads.virtual.enabled", havingValue = "true")
+class VirtualThreadsConfiguration {
+
+	private static final Log logger = LogFactory.getLog(VirtualThreadsConfiguration.class);
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService virtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("petclinic.threads.virtual.enabled requires Java 21 or later, running on "
+					+ System.getProperty("java.version"), ex);
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Could not create virtual thread executor", ex);
+		}
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+			ExecutorService virtualThreadExecutor) {
+		return (protocolHandler) -> protocolHandler.setExecutor(virtualThreadExecutor);
+	}
+
+	@Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+		return new TaskExecutorAdapter(virtualThreadExecutor);
+	}
+
+	@Bean
+	public static BeanPostProcessor connectionAdmissionPostProcessor(
+			@Value("${petclinic.datasource.admission.permits:0}") int permits,
+			@Value("${petclinic.datasource.admission.timeout:30s}") Duration timeout) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!(bean instanceof DataSource dataSource) || bean instanceof AdmissionControlDataSource) {
+					return bean;
+				}
+				if (bean instanceof ReplicaRoutingDataSource routing) {
+					routing.decoratePools((pool) -> new AdmissionControlDataSource(pool, limit(pool), timeout));
+					return bean;
+				}
+				int limit = limit(DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class));
+				if (limit <= 0) {
+					logger.warn("No connection admission control for data source '" + beanName
+							+ "' as it is not a Hikari pool, set petclinic.datasource.admission.permits to enable it");
+					return bean;
+				}
+				return new AdmissionControlDataSource(dataSource, limit, timeout);
+			}
+
+			private int limit(HikariDataSource pool) {
+				return (permits > 0 || pool == null) ? permits : pool.getMaximumPoolSize();
+			}
+
+		};
+	}
+
+}
@@ -15,14 +15,13 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.BatchSize;
+import org.springframework.samples.petclinic.model.NamedEntity;
 import org.springframework.samples.petclinic.model.Person;
 
 import jakarta.persistence.Entity;
@@ -30,7 +29,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.PostLoad;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.xml.bind.annotation.XmlElement;
 
 /**
@@ -43,13 +46,32 @@ import jakarta.xml.bind.annotation.XmlElement;
  */
 @Entity
 @Table(name = "vets")
+@NamedEntityGraph(name = Vet.SPECIALTIES, attributeNodes = @NamedAttributeNode("specialties"))
 public class Vet extends Person {
 
+	/**
+	 * Name of the entity graph of a vet with its specialties, fetched in the same query
+	 * rather than one query per vet.
+	 */
+	public static final String SPECIALTIES = "Vet.specialties";
+
+	/**
+	 * The specialties, fetched with the vets by the {@link #SPECIALTIES} entity graph, or
+	 * for a whole page of vets at a time where a fetch join would defeat the paging.
+	 */
 	@ManyToMany(fetch = FetchType.EAGER)
+	@BatchSize(size = 10)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
 	private Set<Specialty> specialties;
 
+	/**
+	 * The specialties sorted by name, computed once when the vet is loaded and again
+	 * after each change, since the vet list renders them for every vet on every request.
+	 */
+	@Transient
+	private List<Specialty> sortedSpecialties;
+
 	protected Set<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
 			this.specialties = new HashSet<>();
@@ -59,13 +81,22 @@ public class Vet extends Person {
 
 	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
 		this.specialties = specialties;
+		this.sortedSpecialties = null;
 	}
 
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		if (this.sortedSpecialties == null) {
+			sortSpecialties();
+		}
+		return this.sortedSpecialties;
+	}
+
+	@PostLoad
+	void sortSpecialties() {
+		this.sortedSpecialties = getSpecialtiesInternal().stream()
+			.sorted(Comparator.comparing(NamedEntity::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+			.toList();
 	}
 
 	public int getNrOfSpecialties() {
@@ -74,6 +105,7 @@ public class Vet extends Person {
 
 	public void addSpecialty(Specialty specialty) {
 		getSpecialtiesInternal().add(specialty);
+		this.sortedSpecialties = null;
 	}
 
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.CacheEntryLoader;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the {@code vets} cache: the whole vet list cached by
+ * {@link VetRepository#findAll()}, its pages cached by
+ * {@link VetRepository#findAll(Pageable)} and the {@link VetsPayloads}. It warms up the
+ * list, the first page and the payloads.
+ */
+@Component
+class VetCacheLoader implements CacheEntryLoader {
+
+	private final VetRepository vetRepository;
+
+	private final VetsPayloads payloads;
+
+	VetCacheLoader(VetRepository vetRepository, VetsPayloads payloads) {
+		this.vetRepository = vetRepository;
+		this.payloads = payloads;
+	}
+
+	@Override
+	public String getCacheName() {
+		return "vets";
+	}
+
+	@Override
+	public Object load(Object key) throws Exception {
+		if (SimpleKey.EMPTY.equals(key)) {
+			return this.vetRepository.loadAll();
+		}
+		if (key instanceof Pageable pageable) {
+			Page<Vet> page = this.vetRepository.loadAll(pageable);
+			return (page.hasContent() || pageable.getPageNumber() == 0) ? page : null;
+		}
+		if (key instanceof VetsPayloads.Key payload) {
+			return this.payloads.serialize(payload.mediaType(), this.vetRepository.loadAll());
+		}
+		return null;
+	}
+
+	@Override
+	public Collection<?> getWarmUpKeys() {
+		List<Object> keys = new ArrayList<>();
+		keys.add(SimpleKey.EMPTY);
+		keys.add(PageRequest.of(0, VetController.PAGE_SIZE));
+		for (MediaType mediaType : VetsPayloads.MEDIA_TYPES) {
+			keys.add(new VetsPayloads.Key(mediaType));
+		}
+		return keys;
+	}
+
+}
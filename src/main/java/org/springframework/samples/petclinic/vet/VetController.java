@@ -20,11 +20,17 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.NativeWebRequest;
 
 /**
  * @author Juergen Hoeller
@@ -35,10 +41,19 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class VetController {
 
+	static final int PAGE_SIZE = 5;
+
 	private final VetRepository vetRepository;
 
-	public VetController(VetRepository clinicService) {
+	private final VetsPayloads payloads;
+
+	private final ContentNegotiationManager contentNegotiationManager;
+
+	public VetController(VetRepository clinicService, VetsPayloads payloads,
+			ContentNegotiationManager contentNegotiationManager) {
 		this.vetRepository = clinicService;
+		this.payloads = payloads;
+		this.contentNegotiationManager = contentNegotiationManager;
 	}
 
 	@GetMapping("/vets.html")
@@ -61,18 +76,52 @@ class VetController {
 	}
 
 	private Page<Vet> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
+		Pageable pageable = PageRequest.of(Math.max(page, 1) - 1, PAGE_SIZE);
 		return vetRepository.findAll(pageable);
 	}
 
+	/**
+	 * The vet list as JSON or XML, gzipped when the client accepts it. The payloads are
+	 * serialized once and cached with the vets, so a request costs no query and no
+	 * serialization, and a matching {@code If-None-Match} is answered with 304.
+	 */
 	@GetMapping({ "/vets" })
-	public @ResponseBody Vets showResourcesVetList() {
-		// Here we are returning an object of type 'Vets' rather than a collection of Vet
-		// objects so it is simpler for JSon/Object mapping
-		Vets vets = new Vets();
-		vets.getVetList().addAll(this.vetRepository.findAll());
-		return vets;
+	public ResponseEntity<byte[]> showResourcesVetList(NativeWebRequest request)
+			throws HttpMediaTypeNotAcceptableException {
+		VetsPayloads.Payload payload = this.payloads.get(negotiate(request));
+		boolean gzipped = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+			.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+			.contentType(payload.contentType())
+			.eTag(payload.etag(gzipped));
+		if (gzipped) {
+			return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+		}
+		return response.body(payload.plain());
+	}
+
+	private MediaType negotiate(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+		for (MediaType accepted : this.contentNegotiationManager.resolveMediaTypes(request)) {
+			for (MediaType mediaType : VetsPayloads.MEDIA_TYPES) {
+				if (accepted.isCompatibleWith(mediaType)) {
+					return mediaType;
+				}
+			}
+		}
+		throw new HttpMediaTypeNotAcceptableException(VetsPayloads.MEDIA_TYPES);
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+			String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+			if (parts.length > 0 && parts[0].equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
 	}
 
 }
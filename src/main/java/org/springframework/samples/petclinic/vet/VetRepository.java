@@ -19,10 +19,13 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant
@@ -38,21 +41,43 @@ import java.util.Collection;
 public interface VetRepository extends Repository<Vet, Integer> {
 
 	/**
-	 * Retrieve all <code>Vet</code>s from the data store.
+	 * Retrieve all <code>Vet</code>s from the data store, with their specialties.
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
+	@EntityGraph(Vet.SPECIALTIES)
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
 	/**
-	 * Retrieve all <code>Vet</code>s from data store in Pages
+	 * Retrieve all <code>Vet</code>s from data store in Pages. Pages past the last one
+	 * are not cached, so the cache holds at most one entry per existing page.
 	 * @param pageable
 	 * @return
 	 * @throws DataAccessException
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
+	@Cacheable(cacheNames = "vets", unless = "!#result.hasContent() && #result.number > 0")
 	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
 
+	/**
+	 * Retrieve all <code>Vet</code>s from the data store, with their specialties,
+	 * bypassing the cache, to load it.
+	 * @return a <code>List</code> of <code>Vet</code>s
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@EntityGraph(Vet.SPECIALTIES)
+	@Transactional(readOnly = true)
+	List<Vet> loadAll() throws DataAccessException;
+
+	/**
+	 * Retrieve a page of <code>Vet</code>s from the data store, bypassing the cache, to
+	 * load it.
+	 * @param pageable the page to retrieve
+	 * @return a Page of <code>Vet</code>s
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@Transactional(readOnly = true)
+	Page<Vet> loadAll(Pageable pageable) throws DataAccessException;
+
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The vet list serialized to JSON and XML, plain and gzipped, kept in the {@code vets}
+ * cache next to the vets themselves so that both are evicted together. The payloads are
+ * written with the application's message converters, so they are the same bytes that
+ * returning {@link Vets} from a handler would produce.
+ */
+@Component
+class VetsPayloads {
+
+	/**
+	 * The representations served, the first one being the default.
+	 */
+	static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML);
+
+	private final VetRepository vetRepository;
+
+	private final HttpMessageConverters converters;
+
+	private final Cache cache;
+
+	VetsPayloads(VetRepository vetRepository, HttpMessageConverters converters, CacheManager cacheManager) {
+		this.vetRepository = vetRepository;
+		this.converters = converters;
+		this.cache = cacheManager.getCache("vets");
+	}
+
+	/**
+	 * Return the payload of the given representation, serializing it on first use.
+	 * @param mediaType one of {@link #MEDIA_TYPES}
+	 */
+	Payload get(MediaType mediaType) {
+		return this.cache.get(new Key(mediaType), () -> serialize(mediaType, this.vetRepository.loadAll()));
+	}
+
+	/**
+	 * Serialize the given vets.
+	 * @param mediaType one of {@link #MEDIA_TYPES}
+	 */
+	@SuppressWarnings("unchecked")
+	Payload serialize(MediaType mediaType, Collection<Vet> vetList) throws IOException {
+		Vets vets = new Vets();
+		vets.getVetList().addAll(vetList);
+		BufferedOutputMessage message = new BufferedOutputMessage();
+		for (HttpMessageConverter<?> converter : this.converters) {
+			if (converter.canWrite(Vets.class, mediaType)) {
+				((HttpMessageConverter<Vets>) converter).write(vets, mediaType, message);
+				byte[] plain = message.body.toByteArray();
+				return new Payload(message.headers.getContentType(), plain, gzip(plain),
+						DigestUtils.md5DigestAsHex(plain));
+			}
+		}
+		throw new IllegalStateException("No converter writes the vet list as " + mediaType);
+	}
+
+	private static byte[] gzip(byte[] plain) {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(plain.length / 4 + 64);
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(plain);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * A serialized vet list.
+	 *
+	 * @param contentType the content type written by the converter, with its charset
+	 * @param plain the identity-encoded body
+	 * @param gzip the gzip-encoded body
+	 * @param digest a digest of the plain body, for entity tags
+	 */
+	record Payload(MediaType contentType, byte[] plain, byte[] gzip, String digest) {
+
+		String etag(boolean gzipped) {
+			return "\"vets-" + this.digest + (gzipped ? "-gzip\"" : "\"");
+		}
+
+	}
+
+	/**
+	 * The key of a payload in the {@code vets} cache.
+	 */
+	record Key(MediaType mediaType) {
+	}
+
+	private static class BufferedOutputMessage implements HttpOutputMessage {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+		@Override
+		public OutputStream getBody() {
+			return this.body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+	}
+
+}
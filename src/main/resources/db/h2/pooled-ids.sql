@@ -0,0 +1,9 @@
+-- Run after data.sql with the pooled-ids profile: every sequence now hands out blocks of
+-- 50 ids, which Hibernate allocates from in memory. Rows inserted with SQL still draw
+-- their id from the sequence, one block each, so they never collide with a block in use.
+ALTER SEQUENCE vets_id_seq INCREMENT BY 50;
+ALTER SEQUENCE specialties_id_seq INCREMENT BY 50;
+ALTER SEQUENCE types_id_seq INCREMENT BY 50;
+ALTER SEQUENCE owners_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pets_id_seq INCREMENT BY 50;
+ALTER SEQUENCE visits_id_seq INCREMENT BY 50;
@@ -0,0 +1,9 @@
+-- A local stand-in for a read replica of the jdbc:h2:mem:primary database: read-only
+-- links to its tables, so reads see every write and writes sent here fail
+CREATE LINKED TABLE IF NOT EXISTS vets('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'VETS') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS specialties('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'SPECIALTIES') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS vet_specialties('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'VET_SPECIALTIES') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS types('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'TYPES') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS owners('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'OWNERS') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS pets('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'PETS') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS visits('org.h2.Driver', 'jdbc:h2:mem:primary', 'sa', '', 'VISITS') READONLY;
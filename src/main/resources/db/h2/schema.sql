@@ -5,18 +5,28 @@ DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP SEQUENCE vets_id_seq IF EXISTS;
+DROP SEQUENCE specialties_id_seq IF EXISTS;
+DROP SEQUENCE types_id_seq IF EXISTS;
+DROP SEQUENCE owners_id_seq IF EXISTS;
+DROP SEQUENCE pets_id_seq IF EXISTS;
+DROP SEQUENCE visits_id_seq IF EXISTS;
 
 
+CREATE SEQUENCE vets_id_seq;
 CREATE TABLE vets (
-  id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INTEGER DEFAULT NEXT VALUE FOR vets_id_seq PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR(30)
+  last_name  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
+CREATE SEQUENCE specialties_id_seq;
 CREATE TABLE specialties (
-  id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id   INTEGER DEFAULT NEXT VALUE FOR specialties_id_seq PRIMARY KEY,
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX specialties_name ON specialties (name);
 
@@ -27,38 +37,49 @@ CREATE TABLE vet_specialties (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (vet_id) REFERENCES vets (id);
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
+CREATE SEQUENCE types_id_seq;
 CREATE TABLE types (
-  id   INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name VARCHAR(80)
+  id   INTEGER DEFAULT NEXT VALUE FOR types_id_seq PRIMARY KEY,
+  name VARCHAR(80),
+  version INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX types_name ON types (name);
 
+CREATE SEQUENCE owners_id_seq;
 CREATE TABLE owners (
-  id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INTEGER DEFAULT NEXT VALUE FOR owners_id_seq PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL,
+  last_name_soundex CHAR(4)
 );
-CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_last_name ON owners (last_name, id);
+CREATE INDEX owners_last_name_soundex ON owners (last_name_soundex, id);
+CREATE INDEX owners_telephone ON owners (telephone);
 
+CREATE SEQUENCE pets_id_seq;
 CREATE TABLE pets (
-  id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id         INTEGER DEFAULT NEXT VALUE FOR pets_id_seq PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER
+  owner_id   INTEGER,
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
 CREATE INDEX pets_name ON pets (name);
 
+CREATE SEQUENCE visits_id_seq;
 CREATE TABLE visits (
-  id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  id          INTEGER DEFAULT NEXT VALUE FOR visits_id_seq PRIMARY KEY,
   pet_id      INTEGER,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id ON visits (pet_id, visit_date, id);
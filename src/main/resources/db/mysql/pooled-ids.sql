@@ -0,0 +1,10 @@
+-- Run after data.sql with the pooled-ids profile: Hibernate allocates blocks of 50 ids from
+-- the <table>_id_seq tables, which start after the rows already stored. AUTO_INCREMENT
+-- knows nothing of these blocks, so rows inserted with SQL, like bulk imports and new
+-- visits, reserve their ids from the same tables (petclinic.ids.tables).
+INSERT INTO vets_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM vets WHERE NOT EXISTS (SELECT * FROM vets_id_seq);
+INSERT INTO specialties_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM specialties WHERE NOT EXISTS (SELECT * FROM specialties_id_seq);
+INSERT INTO types_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM types WHERE NOT EXISTS (SELECT * FROM types_id_seq);
+INSERT INTO owners_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM owners WHERE NOT EXISTS (SELECT * FROM owners_id_seq);
+INSERT INTO pets_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM pets WHERE NOT EXISTS (SELECT * FROM pets_id_seq);
+INSERT INTO visits_id_seq SELECT COALESCE(MAX(id), 0) + 1 FROM visits WHERE NOT EXISTS (SELECT * FROM visits_id_seq);
@@ -2,12 +2,14 @@ CREATE TABLE IF NOT EXISTS vets (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -22,6 +24,7 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 CREATE TABLE IF NOT EXISTS types (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(80),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(name)
 ) engine=InnoDB;
 
@@ -32,7 +35,11 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  last_name_soundex CHAR(4),
+  INDEX(last_name, id),
+  INDEX(last_name_soundex, id),
+  INDEX(telephone)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -41,6 +48,7 @@ CREATE TABLE IF NOT EXISTS pets (
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED,
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
@@ -51,5 +59,68 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED,
   visit_date DATE,
   description VARCHAR(255),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  INDEX(pet_id, visit_date, id),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- databases created before the version columns were added; MySQL has no ADD COLUMN IF
+-- NOT EXISTS, so each column is only added when information_schema does not list it
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE vets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'vets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE specialties ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'specialties' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE types ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'types' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE pets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'version');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- databases created before the phonetic keys were added, which are filled in on startup
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN last_name_soundex CHAR(4)', 'DO 0') FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'last_name_soundex');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'CREATE INDEX owners_last_name_soundex ON owners (last_name_soundex, id)', 'DO 0') FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'last_name_soundex');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- databases created before the keyset searches and the telephone lookup, which have
+-- none of these indexes or only a single-column one on last_name
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'CREATE INDEX owners_last_name_id ON owners (last_name, id)', 'DO 0') FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'id' AND seq_in_index = 2 AND index_name IN (SELECT index_name FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'last_name' AND seq_in_index = 1));
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'CREATE INDEX owners_telephone ON owners (telephone)', 'DO 0') FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'telephone' AND seq_in_index = 1);
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'CREATE INDEX visits_pet_id_visit_date_id ON visits (pet_id, visit_date, id)', 'DO 0') FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'visit_date' AND seq_in_index = 2 AND index_name IN (SELECT index_name FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'pet_id' AND seq_in_index = 1));
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- MySQL has no sequences: with the pooled-ids profile, blocks of ids are allocated from
+-- these tables instead, one per table and filled in by pooled-ids.sql
+CREATE TABLE IF NOT EXISTS vets_id_seq (next_val BIGINT) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS specialties_id_seq (next_val BIGINT) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS types_id_seq (next_val BIGINT) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS owners_id_seq (next_val BIGINT) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS pets_id_seq (next_val BIGINT) engine=InnoDB;
+CREATE TABLE IF NOT EXISTS visits_id_seq (next_val BIGINT) engine=InnoDB;
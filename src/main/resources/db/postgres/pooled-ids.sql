@@ -0,0 +1,9 @@
+-- Run after data.sql with the pooled-ids profile: every sequence now hands out blocks of
+-- 50 ids, which Hibernate allocates from in memory. Rows inserted with SQL still draw
+-- their id from the sequence, one block each, so they never collide with a block in use.
+ALTER TABLE vets ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE specialties ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE types ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE owners ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE pets ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE visits ALTER COLUMN id SET INCREMENT BY 50;
@@ -1,13 +1,17 @@
+-- ids are generated by identity columns, drawing from the sequences named <table>_id_seq
+-- that the pooled-ids profile allocates blocks of ids from
 CREATE TABLE IF NOT EXISTS vets (
   id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   first_name TEXT,
-  last_name  TEXT
+  last_name  TEXT,
+  version    INT DEFAULT 0 NOT NULL
 );
 CREATE INDEX ON vets (last_name);
 
 CREATE TABLE IF NOT EXISTS specialties (
   id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name TEXT
+  name TEXT,
+  version INT DEFAULT 0 NOT NULL
 );
 CREATE INDEX ON specialties (name);
 
@@ -19,7 +23,8 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 
 CREATE TABLE IF NOT EXISTS types (
   id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name TEXT
+  name TEXT,
+  version INT DEFAULT 0 NOT NULL
 );
 CREATE INDEX ON types (name);
 
@@ -29,16 +34,19 @@ CREATE TABLE IF NOT EXISTS owners (
   last_name  TEXT,
   address    TEXT,
   city       TEXT,
-  telephone  TEXT
+  telephone  TEXT,
+  version    INT DEFAULT 0 NOT NULL,
+  last_name_soundex CHAR(4)
 );
-CREATE INDEX ON owners (last_name);
+CREATE INDEX IF NOT EXISTS owners_last_name_id_idx ON owners (last_name, id);
 
 CREATE TABLE IF NOT EXISTS pets (
   id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   name       TEXT,
   birth_date DATE,
   type_id    INT NOT NULL REFERENCES types (id),
-  owner_id   INT REFERENCES owners (id)
+  owner_id   INT REFERENCES owners (id),
+  version    INT DEFAULT 0 NOT NULL
 );
 CREATE INDEX ON pets (name);
 CREATE INDEX ON pets (owner_id);
@@ -47,6 +55,22 @@ CREATE TABLE IF NOT EXISTS visits (
   id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   pet_id      INT REFERENCES pets (id),
   visit_date  DATE,
-  description TEXT
+  description TEXT,
+  version     INT DEFAULT 0 NOT NULL
 );
-CREATE INDEX ON visits (pet_id);
+CREATE INDEX IF NOT EXISTS visits_pet_id_visit_date_id_idx ON visits (pet_id, visit_date, id);
+
+-- databases created before the version columns were added
+ALTER TABLE vets ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+ALTER TABLE specialties ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+ALTER TABLE types ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+ALTER TABLE pets ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+ALTER TABLE visits ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL;
+
+-- databases created before the phonetic keys were added, which are filled in on startup
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS last_name_soundex CHAR(4);
+CREATE INDEX IF NOT EXISTS owners_last_name_soundex_id_idx ON owners (last_name_soundex, id);
+
+-- owners are identified by telephone number, which holds digits only
+CREATE INDEX IF NOT EXISTS owners_telephone_idx ON owners (telephone);
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.system.StatementCountTests;
+
+/**
+ * Asserts the exact number of SQL statements each {@link OwnerController} endpoint
+ * executes against the sample data.
+ */
+class OwnerControllerTests extends StatementCountTests {
+
+	@Test
+	void initCreationForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/new")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(0, 0, 0, 0));
+	}
+
+	@Test
+	void processCreationForm() throws Exception {
+		assertThat(statements(this.mockMvc
+			.perform(post("/owners/new").param("firstName", "Ada")
+				.param("lastName", "Lovelace")
+				.param("address", "12 St James's Square")
+				.param("city", "London")
+				.param("telephone", "1815121052"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(0, 1, 0, 0));
+	}
+
+	@Test
+	void initFindForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/find")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(0, 0, 0, 0));
+	}
+
+	@Test
+	void autocomplete() throws Exception {
+		assertThat(statements(
+				this.mockMvc.perform(get("/owners/autocomplete").param("q", "da")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(0, 0, 0, 0));
+	}
+
+	@Test
+	void findByTelephone() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/telephone").param("number", "(608) 555-2654"))
+			.andExpect(status().isOk()))).isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void findByIds() throws Exception {
+		assertThat(statements(
+				this.mockMvc.perform(get("/owners/batch").param("ids", "1,3,6,99")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void findByIdsWithEmptyIds() throws Exception {
+		assertThat(
+				statements(this.mockMvc.perform(get("/owners/batch").param("ids", "1,,3")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processFindFormWithAllOwners() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners").param("lastName", "")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+	@Test
+	void processFindFormWithSeveralOwners() throws Exception {
+		assertThat(
+				statements(this.mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processFindFormWithOneOwner() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners").param("lastName", "Franklin"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processFindFormWithCursor() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners").param("lastName", "").param("cursor", ""))
+			.andExpect(status().isOk()))).isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+	@Test
+	void processFuzzyFindForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners").param("lastName", "Davies").param("fuzzy", "true"))
+			.andExpect(status().isOk()))).isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processFindFormFallingBackToFuzzy() throws Exception {
+		assertThat(
+				statements(this.mockMvc.perform(get("/owners").param("lastName", "Davies")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+	@Test
+	void initUpdateOwnerForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/2/edit")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processUpdateOwnerForm() throws Exception {
+		assertThat(statements(this.mockMvc
+			.perform(post("/owners/8/edit").param("firstName", "Maria")
+				.param("lastName", "Escobito")
+				.param("address", "345 Maple St.")
+				.param("city", "Monona")
+				.param("telephone", "6085557683")
+				.param("version", "0"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(1, 0, 1, 0));
+	}
+
+	@Test
+	void showOwner() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/1")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(4, 0, 0, 0));
+	}
+
+}
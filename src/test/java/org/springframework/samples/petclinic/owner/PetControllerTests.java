@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.system.StatementCountTests;
+
+/**
+ * Asserts the exact number of SQL statements each {@link PetController} endpoint executes
+ * against the sample data.
+ */
+class PetControllerTests extends StatementCountTests {
+
+	@Test
+	void initCreationForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/6/pets/new")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processCreationForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(
+				post("/owners/9/pets/new").param("name", "Rex").param("birthDate", "2020-01-01").param("type", "dog"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(2, 1, 2, 0));
+	}
+
+	@Test
+	void initUpdateForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/6/pets/8/edit")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+	@Test
+	void processUpdateForm() throws Exception {
+		assertThat(statements(this.mockMvc
+			.perform(post("/owners/10/pets/13/edit").param("id", "13")
+				.param("name", "Sly")
+				.param("birthDate", "2012-06-09")
+				.param("type", "cat")
+				.param("version", "0"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(1, 0, 1, 0));
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.system.StatementCountTests;
+
+/**
+ * Asserts the exact number of SQL statements each {@link VisitController} endpoint
+ * executes against the sample data.
+ */
+class VisitControllerTests extends StatementCountTests {
+
+	@Test
+	void initNewVisitForm() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/6/pets/7/visits/new")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+	@Test
+	void processNewVisitForm() throws Exception {
+		assertThat(statements(this.mockMvc
+			.perform(post("/owners/7/pets/9/visits/new").param("date", "2024-01-01").param("description", "checkup"))
+			.andExpect(status().is3xxRedirection()))).isEqualTo(new Statements(0, 1, 0, 0));
+	}
+
+	@Test
+	void showVisitHistory() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/owners/6/pets/7/visits")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+	@Test
+	void showVisitHistoryBefore() throws Exception {
+		assertThat(statements(this.mockMvc
+			.perform(get("/owners/6/pets/7/visits").param("beforeDate", "2013-01-04").param("beforeId", "4"))
+			.andExpect(status().isOk()))).isEqualTo(new Statements(2, 0, 0, 0));
+	}
+
+}
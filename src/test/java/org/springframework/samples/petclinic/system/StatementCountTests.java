@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.samples.petclinic.system.QueryStats.Kind;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+/**
+ * Base class for tests that assert the exact number of SQL statements each request
+ * executes against the sample data, so that an N+1 query fails the build. Statements are
+ * counted by the application's own {@link QueryStats}: only those of the request itself,
+ * on the request thread, so that background work such as cache refreshes is left out. A
+ * batch counts as one statement.
+ * <p>
+ * Every test starts with empty caches and shares the sample data with the other tests, so
+ * a test that writes uses an owner or pet that no other test reads.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class StatementCountTests {
+
+	@Autowired
+	protected MockMvc mockMvc;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	void clearCaches() {
+		this.cacheManager.getCacheNames().forEach((name) -> this.cacheManager.getCache(name).clear());
+	}
+
+	/**
+	 * Return the statements the given request executed.
+	 * @param result the result of a request performed through {@link #mockMvc}
+	 * @return the statements executed
+	 */
+	protected Statements statements(ResultActions result) {
+		QueryStats stats = (QueryStats) result.andReturn().getRequest().getAttribute(QueryStats.class.getName());
+		return new Statements(stats.getStatements(Kind.SELECT), stats.getStatements(Kind.INSERT),
+				stats.getStatements(Kind.UPDATE), stats.getStatements(Kind.DELETE));
+	}
+
+	/**
+	 * The statements executed by a request.
+	 *
+	 * @param selects the number of {@code SELECT} statements
+	 * @param inserts the number of {@code INSERT} statements
+	 * @param updates the number of {@code UPDATE} statements
+	 * @param deletes the number of {@code DELETE} statements
+	 */
+	public record Statements(int selects, int inserts, int updates, int deletes) {
+
+	}
+
+}
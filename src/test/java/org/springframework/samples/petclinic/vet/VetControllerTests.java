@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.system.StatementCountTests;
+
+/**
+ * Asserts the exact number of SQL statements each {@link VetController} endpoint executes
+ * against the sample data.
+ */
+class VetControllerTests extends StatementCountTests {
+
+	@Test
+	void showVetList() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/vets.html")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(3, 0, 0, 0));
+	}
+
+	@Test
+	void showResourcesVetList() throws Exception {
+		assertThat(statements(this.mockMvc.perform(get("/vets")).andExpect(status().isOk())))
+			.isEqualTo(new Statements(1, 0, 0, 0));
+	}
+
+}
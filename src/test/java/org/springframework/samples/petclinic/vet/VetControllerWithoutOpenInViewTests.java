@@ -0,0 +1,27 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the {@link VetControllerTests} with {@code spring.jpa.open-in-view=false}, where a
+ * view that touches a lazy association it was not given fails to render.
+ */
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+class VetControllerWithoutOpenInViewTests extends VetControllerTests {
+
+}